@@ -0,0 +1,46 @@
+package com.ortecfinance.tasklist.benchmarks;
+
+import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.repository.TaskRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Appends to a repository that already holds size tasks. The repository is refilled before every
+// iteration, so the tasks added by one iteration don't inflate the size seen by the next.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx16g"})
+@State(Scope.Benchmark)
+public class AddTaskBenchmark {
+
+    @Param({"inmemory", "concurrent", "columnar"})
+    public String layout;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"uniform", "skewed"})
+    public String distribution;
+
+    private TaskRepository repository;
+    private List<String> projects;
+    private Fixtures.ProjectPicker picker;
+    private final SplittableRandom random = new SplittableRandom(11);
+
+    @Setup(Level.Iteration)
+    public void fill() {
+        repository = Fixtures.fill(Fixtures.repository(layout), size, distribution);
+        projects = Fixtures.projectNames();
+        picker = new Fixtures.ProjectPicker(distribution);
+    }
+
+    @Benchmark
+    public Task addTask() {
+        return repository.addTask(projects.get(picker.next(random)), "Water the plants");
+    }
+}
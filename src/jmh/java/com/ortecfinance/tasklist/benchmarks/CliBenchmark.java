@@ -0,0 +1,45 @@
+package com.ortecfinance.tasklist.benchmarks;
+
+import com.ortecfinance.tasklist.cli.TaskCLI;
+import com.ortecfinance.tasklist.service.TaskService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+// Rendering of the console "show" command. Output goes to a writer that drops it, so only
+// formatting and the walk over the tasks are measured.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class CliBenchmark {
+
+    @Param({"inmemory", "concurrent", "columnar"})
+    public String layout;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"uniform", "skewed"})
+    public String distribution;
+
+    private TaskService service;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        service = new TaskService(Fixtures.fill(Fixtures.repository(layout), size, distribution));
+    }
+
+    @Benchmark
+    public int show() {
+        BufferedReader in = new BufferedReader(new StringReader("show\n"));
+        PrintWriter out = new PrintWriter(Writer.nullWriter());
+        return new TaskCLI(service, in, out).runScript(TaskCLI.DEFAULT_FLUSH_EVERY);
+    }
+}
@@ -0,0 +1,100 @@
+package com.ortecfinance.tasklist.benchmarks;
+
+import com.ortecfinance.tasklist.repository.ColumnarTaskRepository;
+import com.ortecfinance.tasklist.repository.ConcurrentTaskRepository;
+import com.ortecfinance.tasklist.repository.InMemoryTaskRepository;
+import com.ortecfinance.tasklist.repository.PartitionedTaskRepository;
+import com.ortecfinance.tasklist.repository.TaskRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Builds the data sets shared by the benchmarks. Every repository is filled with the same tasks for
+// the same parameters, so results can be compared across layouts.
+final class Fixtures {
+
+    static final int PROJECTS = 100;
+    static final LocalDate TODAY = LocalDate.now();
+    private static final String[] CHORES = {
+            "Water the plants", "Take out the recycling", "Review open pull requests",
+            "Update the sprint board", "Back up the laptop", "Pay the electricity bill",
+    };
+
+    private Fixtures() {
+    }
+
+    static TaskRepository repository(String layout) {
+        return switch (layout) {
+            case "inmemory" -> new InMemoryTaskRepository();
+            case "concurrent" -> new ConcurrentTaskRepository();
+            case "columnar" -> new ColumnarTaskRepository();
+            case "partitioned" -> new PartitionedTaskRepository();
+            default -> throw new IllegalArgumentException("Unknown repository layout: " + layout);
+        };
+    }
+
+    // uniform spreads tasks evenly over the projects; skewed follows a Zipf curve, so the first
+    // project holds about a fifth of all tasks and the long tail only a handful each.
+    // A third of the tasks get a deadline within 90 days of today, one in ten of those today.
+    static TaskRepository fill(TaskRepository repository, int size, String distribution) {
+        List<String> projects = projectNames();
+        projects.forEach(repository::addProject);
+        ProjectPicker picker = new ProjectPicker(distribution);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < size; i++) {
+            String description = random.nextInt(4) == 0
+                    ? "Fix flaky test in module " + random.nextInt(500)
+                    : CHORES[random.nextInt(CHORES.length)];
+            long id = repository.addTask(projects.get(picker.next(random)), description).getId();
+            if (random.nextInt(3) == 0) {
+                int days = random.nextInt(10) == 0 ? 0 : random.nextInt(1, 90);
+                repository.setTaskDeadline(id, TODAY.plusDays(days));
+            }
+        }
+        return repository;
+    }
+
+    static List<String> projectNames() {
+        List<String> names = new ArrayList<>(PROJECTS);
+        for (int p = 0; p < PROJECTS; p++) {
+            names.add("project-" + p);
+        }
+        return names;
+    }
+
+    static final class ProjectPicker {
+        private final double[] cumulative = new double[PROJECTS];
+
+        ProjectPicker(String distribution) {
+            double total = 0;
+            for (int p = 0; p < PROJECTS; p++) {
+                total += switch (distribution) {
+                    case "uniform" -> 1.0;
+                    case "skewed" -> 1.0 / (p + 1);
+                    default -> throw new IllegalArgumentException("Unknown distribution: " + distribution);
+                };
+                cumulative[p] = total;
+            }
+            for (int p = 0; p < PROJECTS; p++) {
+                cumulative[p] /= total;
+            }
+        }
+
+        int next(SplittableRandom random) {
+            double u = random.nextDouble();
+            int low = 0;
+            int high = PROJECTS - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
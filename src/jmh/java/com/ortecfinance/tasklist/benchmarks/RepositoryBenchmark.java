@@ -0,0 +1,54 @@
+package com.ortecfinance.tasklist.benchmarks;
+
+import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.repository.TaskRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Lookups against a filled repository. Run with -prof gc (the profile's default) for allocation rates.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx16g"})
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+
+    @Param({"inmemory", "concurrent", "columnar", "partitioned"})
+    public String layout;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"uniform", "skewed"})
+    public String distribution;
+
+    private TaskRepository repository;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        repository = Fixtures.fill(Fixtures.repository(layout), size, distribution);
+    }
+
+    @State(Scope.Thread)
+    public static class Ids {
+        private final SplittableRandom random = new SplittableRandom(7);
+
+        long next(int size) {
+            return 1 + random.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    public Optional<Task> findTaskById(Ids ids) {
+        return repository.findTaskById(ids.next(size));
+    }
+
+    @Benchmark
+    public Optional<String> findProjectByTaskId(Ids ids) {
+        return repository.findProjectByTaskId(ids.next(size));
+    }
+}
@@ -0,0 +1,37 @@
+package com.ortecfinance.tasklist.benchmarks;
+
+import com.ortecfinance.tasklist.service.SearchHit;
+import com.ortecfinance.tasklist.service.TaskService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Search latency for the query shapes that matter: a rare conjunction, one common word (early exit),
+// and prefixes expanding to one or several common terms (full ranking).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx16g"})
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"flaky 42", "module", "bil*", "re*"})
+    public String query;
+
+    private TaskService service;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        service = new TaskService(Fixtures.fill(Fixtures.repository("concurrent"), size, "uniform"));
+    }
+
+    @Benchmark
+    public List<SearchHit> search() {
+        return service.search(query, 20);
+    }
+}
@@ -0,0 +1,72 @@
+package com.ortecfinance.tasklist.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ortecfinance.tasklist.codec.TaskBinaryCodec;
+import com.ortecfinance.tasklist.model.Task;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Encode and decode cost of GET /projects in each representation it is offered in. Payload sizes are
+// printed once per trial. Task has no Jackson creator, so the Jackson formats decode to a tree while
+// x-tasklist decodes to tasks; both visit every field.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx16g"})
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"json", "cbor", "smile", "tasklist"})
+    public String format;
+
+    private Map<String, List<Task>> projects;
+    private ObjectMapper mapper;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void fill() throws IOException {
+        projects = Fixtures.fill(Fixtures.repository("concurrent"), size, "uniform").getAllProjectsWithTasks();
+        ObjectMapper json = new ObjectMapper().registerModule(new JavaTimeModule());
+        mapper = switch (format) {
+            case "json", "tasklist" -> json;
+            case "cbor" -> json.copyWith(new CBORFactory());
+            case "smile" -> json.copyWith(new SmileFactory());
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        encoded = encode();
+        System.out.printf("%n%s payload for %d tasks: %d bytes (%.1f per task)%n",
+                format, size, encoded.length, (double) encoded.length / size);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        if (!format.equals("tasklist")) {
+            return mapper.writeValueAsBytes(projects);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(bytes, 1 << 16));
+        TaskBinaryCodec.writeProjects(out, projects);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        if (!format.equals("tasklist")) {
+            return mapper.readTree(encoded);
+        }
+        return TaskBinaryCodec.readProjects(
+                new DataInputStream(new BufferedInputStream(new ByteArrayInputStream(encoded), 1 << 16)));
+    }
+}
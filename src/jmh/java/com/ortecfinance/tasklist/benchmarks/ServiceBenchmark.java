@@ -0,0 +1,58 @@
+package com.ortecfinance.tasklist.benchmarks;
+
+import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.service.TaskService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// TaskService paths the console and REST API hit most: deadline updates and the deadline views.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx16g"})
+@State(Scope.Benchmark)
+public class ServiceBenchmark {
+
+    @Param({"inmemory", "concurrent", "columnar", "partitioned"})
+    public String layout;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"uniform", "skewed"})
+    public String distribution;
+
+    private TaskService service;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        service = new TaskService(Fixtures.fill(Fixtures.repository(layout), size, distribution));
+    }
+
+    @State(Scope.Thread)
+    public static class Updates {
+        private final SplittableRandom random = new SplittableRandom(13);
+    }
+
+    @Benchmark
+    public void setTaskDeadline(Updates updates) {
+        // moves tasks between dates inside the same 90-day window, so the view sizes stay stable
+        long id = 1 + updates.random.nextInt(size);
+        service.setTaskDeadline(id, Fixtures.TODAY.plusDays(updates.random.nextInt(1, 90)));
+    }
+
+    @Benchmark
+    public TaskService.DeadlineView getTasksByDeadline() {
+        return service.getTasksByDeadline();
+    }
+
+    @Benchmark
+    public Map<String, List<Task>> getTodaysTasks() {
+        return service.getTodaysTasks();
+    }
+}
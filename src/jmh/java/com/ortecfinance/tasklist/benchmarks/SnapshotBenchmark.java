@@ -0,0 +1,47 @@
+package com.ortecfinance.tasklist.benchmarks;
+
+import com.ortecfinance.tasklist.persistence.SnapshotFile;
+import com.ortecfinance.tasklist.repository.TaskRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Cold start from a snapshot file: loading it into an empty repository. Compare sizes to see whether
+// restart time grows linearly with the snapshot.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx16g"})
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+    @Param({"inmemory", "concurrent", "columnar", "partitioned"})
+    public String layout;
+
+    @Param({"20000", "200000", "2000000"})
+    public int size;
+
+    private Path snapshot;
+
+    @Setup(Level.Trial)
+    public void write() throws IOException {
+        snapshot = Files.createTempFile("tasks", ".snapshot");
+        SnapshotFile.write(snapshot, Fixtures.fill(Fixtures.repository("concurrent"), size, "uniform").snapshot(), 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        Files.deleteIfExists(snapshot);
+    }
+
+    @Benchmark
+    public TaskRepository load() throws IOException {
+        TaskRepository repository = Fixtures.repository(layout);
+        SnapshotFile.load(snapshot, repository);
+        return repository;
+    }
+}
@@ -1,25 +1,64 @@
 package com.ortecfinance.tasklist;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.ortecfinance.tasklist.cli.TaskCLI;
+import com.ortecfinance.tasklist.codec.TaskBinaryHttpMessageConverter;
+import com.ortecfinance.tasklist.events.ChangeFeed;
+import com.ortecfinance.tasklist.metrics.MeteredTaskRepository;
+import com.ortecfinance.tasklist.metrics.TaskGauges;
+import com.ortecfinance.tasklist.persistence.JournalingTaskRepository;
+import com.ortecfinance.tasklist.replication.PrimaryTokenFilter;
+import com.ortecfinance.tasklist.replication.ReplicaClient;
+import com.ortecfinance.tasklist.replication.ReplicaReadFilter;
+import com.ortecfinance.tasklist.replication.ReplicaTaskRepository;
+import com.ortecfinance.tasklist.replication.ReplicationServer;
+import com.ortecfinance.tasklist.repository.ColumnarTaskRepository;
+import com.ortecfinance.tasklist.repository.ConcurrentTaskRepository;
 import com.ortecfinance.tasklist.repository.InMemoryTaskRepository;
+import com.ortecfinance.tasklist.repository.PartitionedTaskRepository;
 import com.ortecfinance.tasklist.repository.TaskRepository;
 import com.ortecfinance.tasklist.service.TaskService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.SpringApplication;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
 
 @SpringBootApplication
 public class TaskListApplication {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         if (args.length == 0) {
             System.out.println("Starting console Application");
             startConsole();
         }
+        else if (args[0].equals("--batch")) {
+            // --batch [script file]: replays commands from the file, or from stdin when none is given
+            int failed = runScript(args.length > 1 ? Path.of(args[1]) : null);
+            System.exit(failed == 0 ? 0 : 1);
+        }
         else {
             SpringApplication.run(TaskListApplication.class, args);
             System.out.println("REST API started. Try: http://localhost:8080/projects");
@@ -36,13 +75,150 @@ public class TaskListApplication {
         new TaskCLI(service, in, out).run();
     }
 
+    private static int runScript(Path script) throws IOException {
+        BufferedReader in = script == null
+                ? new BufferedReader(new InputStreamReader(System.in), 1 << 16)
+                : Files.newBufferedReader(script);
+        // no autoflush; the script runner flushes in batches
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16), false);
+
+        TaskService service = new TaskService(new InMemoryTaskRepository());
+        try (in) {
+            return new TaskCLI(service, in, out).runScript(TaskCLI.DEFAULT_FLUSH_EVERY);
+        }
+    }
+
+    // @Primary because a follower also exposes the ReplicaTaskRepository this wraps
+    @Bean
+    @Primary
+    public TaskRepository taskRepository(
+            @Value("${tasklist.repository.layout:concurrent}") String layout,
+            @Value("${tasklist.repository.shards:0}") int shards,
+            @Value("${tasklist.journal.path:}") String journalPath,
+            @Value("${tasklist.journal.group-commit-window-ms:2}") long groupCommitWindowMs,
+            @Value("${tasklist.snapshot.path:}") String snapshotPath,
+            @Value("${tasklist.snapshot.interval-seconds:300}") long snapshotIntervalSeconds,
+            MeterRegistry meterRegistry,
+            ObjectProvider<ReplicaTaskRepository> replica
+    ) throws IOException {
+        // a follower's state comes from the primary, so it has no layout choice and no journal of its own
+        ReplicaTaskRepository follower = replica.getIfAvailable();
+        if (follower != null) {
+            return new MeteredTaskRepository(follower, meterRegistry);
+        }
+        // REST handlers run on many threads at once, all three layouts are thread-safe
+        TaskRepository repository = switch (layout) {
+            case "concurrent" -> new ConcurrentTaskRepository();
+            case "columnar" -> new ColumnarTaskRepository();
+            // one shard per core unless configured
+            case "partitioned" -> shards > 0 ? new PartitionedTaskRepository(shards) : new PartitionedTaskRepository();
+            default -> throw new IllegalArgumentException("Unknown repository layout: " + layout);
+        };
+        if (!journalPath.isBlank()) {
+            repository = JournalingTaskRepository.open(repository, new JournalingTaskRepository.Options(
+                    Path.of(journalPath),
+                    snapshotPath.isBlank() ? null : Path.of(snapshotPath),
+                    Duration.ofMillis(groupCommitWindowMs),
+                    Duration.ofSeconds(snapshotIntervalSeconds)
+            ));
+        }
+        // outermost, so write timings include the journal's fsync
+        return new MeteredTaskRepository(repository, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tasklist.replication.role", havingValue = "follower")
+    public ReplicaTaskRepository replicaTaskRepository() {
+        return new ReplicaTaskRepository();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tasklist.replication.role", havingValue = "follower")
+    public ReplicaClient replicaClient(
+            TaskService taskService,
+            ReplicaTaskRepository replicaTaskRepository,
+            @Value("${tasklist.replication.address:127.0.0.1:7070}") String address,
+            @Value("${tasklist.replication.heartbeat-ms:100}") long heartbeatMs,
+            @Value("${tasklist.replication.retry-ms:500}") long retryMs
+    ) {
+        return new ReplicaClient(taskService, replicaTaskRepository, socketAddress(address),
+                Duration.ofMillis(heartbeatMs), Duration.ofMillis(retryMs));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tasklist.replication.role", havingValue = "follower")
+    public ReplicaReadFilter replicaReadFilter(
+            ReplicaClient replicaClient,
+            @Value("${tasklist.replication.read-wait-ms:1000}") long readWaitMs
+    ) {
+        return new ReplicaReadFilter(replicaClient, Duration.ofMillis(readWaitMs));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tasklist.replication.role", havingValue = "primary")
+    public ReplicationServer replicationServer(
+            TaskService taskService,
+            @Value("${tasklist.replication.address:127.0.0.1:7070}") String address,
+            @Value("${tasklist.replication.heartbeat-ms:100}") long heartbeatMs
+    ) throws IOException {
+        return new ReplicationServer(taskService, socketAddress(address), Duration.ofMillis(heartbeatMs));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tasklist.replication.role", havingValue = "primary")
+    public PrimaryTokenFilter primaryTokenFilter(ReplicationServer replicationServer) {
+        return new PrimaryTokenFilter(replicationServer);
+    }
+
+    // host:port
+    private static InetSocketAddress socketAddress(String address) {
+        int separator = address.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Replication address must be host:port: " + address);
+        }
+        return new InetSocketAddress(address.substring(0, separator), Integer.parseInt(address.substring(separator + 1)));
+    }
+
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+
+    @Bean
+    public TaskGauges taskGauges(TaskRepository taskRepository, Clock clock) {
+        return new TaskGauges(taskRepository, clock);
+    }
+
+    @Bean
+    public ChangeFeed changeFeed(
+            @Value("${tasklist.events.history-size:10000}") int historySize,
+            @Value("${tasklist.events.subscriber-buffer:1000}") int subscriberBuffer
+    ) {
+        return new ChangeFeed(historySize, subscriberBuffer);
+    }
+
     @Bean
-    public TaskRepository taskRepository() {
-        return new InMemoryTaskRepository();
+    public TaskService taskService(TaskRepository taskRepository, ChangeFeed changeFeed, Clock clock) {
+        return new TaskService(taskRepository, changeFeed, clock);
     }
 
+    // Responses negotiate between JSON, CBOR, Smile and the length-prefixed application/x-tasklist.
+    // The CBOR and Smile mappers are copies of the JSON one, so all formats share its modules and settings;
+    // the binary converter goes last, so clients that accept anything keep getting JSON.
     @Bean
-    public TaskService taskService(TaskRepository taskRepository) {
-        return new TaskService(taskRepository);
+    public WebMvcConfigurer binaryRepresentations(ObjectMapper objectMapper) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                converters.replaceAll(converter -> switch (converter) {
+                    case MappingJackson2CborHttpMessageConverter cbor ->
+                            new MappingJackson2CborHttpMessageConverter(objectMapper.copyWith(new CBORFactory()));
+                    case MappingJackson2SmileHttpMessageConverter smile ->
+                            new MappingJackson2SmileHttpMessageConverter(objectMapper.copyWith(new SmileFactory()));
+                    default -> converter;
+                });
+                converters.add(new TaskBinaryHttpMessageConverter());
+            }
+        };
     }
- }
\ No newline at end of file
+}
@@ -1,23 +1,32 @@
 package com.ortecfinance.tasklist.cli;
 
 import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.repository.TaskStats;
+import com.ortecfinance.tasklist.service.SearchHit;
 import com.ortecfinance.tasklist.service.TaskService;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 public final class TaskCLI implements Runnable {
     private static final String QUIT = "quit";
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final int SEARCH_LIMIT = 20;
+    // script mode flushes output after this many commands instead of after every prompt
+    public static final int DEFAULT_FLUSH_EVERY = 1_000;
 
     private final TaskService service;
     private final BufferedReader in;
     private final PrintWriter out;
+    // message of the last failure printed by the current command, null if it succeeded
+    private String lastError;
 
     public TaskCLI(TaskService service, BufferedReader reader, PrintWriter writer) {
         this.service = service;
@@ -36,13 +45,52 @@ public final class TaskCLI implements Runnable {
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
-            if (command.equals(QUIT)) {
+            if (command == null || command.equals(QUIT)) {
                 break;
             }
             execute(command);
         }
     }
 
+    // Non-interactive mode for replaying command scripts: no welcome text or prompts, output is only
+    // flushed every flushEvery commands and at the end. Blank lines and lines starting with '#' are
+    // skipped. Ends with a summary of the failed commands and returns how many failed.
+    public int runScript(int flushEvery) {
+        List<String> errors = new ArrayList<>();
+        int lineNumber = 0;
+        int executed = 0;
+        while (true) {
+            String command;
+            try {
+                command = in.readLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            lineNumber++;
+            if (command == null || command.equals(QUIT)) {
+                break;
+            }
+            if (command.isBlank() || command.startsWith("#")) {
+                continue;
+            }
+            lastError = null;
+            execute(command);
+            if (lastError != null) {
+                errors.add("line " + lineNumber + ": " + lastError);
+            }
+            if (++executed % flushEvery == 0) {
+                out.flush();
+            }
+        }
+
+        out.println("Ran " + executed + " command(s), " + errors.size() + " failed.");
+        for (String error : errors) {
+            out.println("    " + error);
+        }
+        out.flush();
+        return errors.size();
+    }
+
     private void execute(String commandLine) {
         String[] commandRest = commandLine.split(" ", 2);
         String command = commandRest[0];
@@ -89,6 +137,33 @@ public final class TaskCLI implements Runnable {
                 case "view-by-deadline":
                     viewByDeadline();
                     break;
+                case "stats":
+                    stats();
+                    break;
+                case "overdue":
+                    printByDeadline(service.getOverdueTasks());
+                    break;
+                case "upcoming":
+                    if (!hasArgs(commandRest)) {
+                        printUsage("upcoming <days>");
+                        break;
+                    }
+                    upcoming(commandRest[1]);
+                    break;
+                case "deadline-counts":
+                    if (!hasArgs(commandRest)) {
+                        printUsage("deadline-counts <dd-MM-yyyy> <dd-MM-yyyy>");
+                        break;
+                    }
+                    deadlineCounts(commandRest[1]);
+                    break;
+                case "search":
+                    if (!hasArgs(commandRest)) {
+                        printUsage("search <words> (end a word with * to match by prefix)");
+                        break;
+                    }
+                    search(commandRest[1]);
+                    break;
                 default:
                     error(command);
                     break;
@@ -96,13 +171,16 @@ public final class TaskCLI implements Runnable {
 
         } catch (IllegalStateException e) {
             // Business rule errors from service (project not found, task not found)
-            out.println(e.getMessage());
+            fail(e.getMessage());
         } catch (NumberFormatException e) {
-            out.println("Invalid number format.");
+            fail("Invalid number format.");
         } catch (java.time.format.DateTimeParseException e) {
-            out.println("Invalid date. Expected format: dd-MM-yyyy.");
+            fail("Invalid date. Expected format: dd-MM-yyyy.");
+        } catch (IllegalArgumentException e) {
+            // Input the service rejected, e.g. a date range that is too long
+            fail(e.getMessage());
         } catch (Exception e) {
-            out.println("Invalid command.");
+            fail("Invalid command.");
         }
     }
 
@@ -111,8 +189,7 @@ public final class TaskCLI implements Runnable {
         for (Map.Entry<String, List<Task>> project : service.getAllProjectsWithTasks().entrySet()) {
             out.println(project.getKey());
             for (Task task : project.getValue()) {
-                String deadlineStr = task.getDeadline() != null ? " " + task.getDeadline().format(DateTimeFormatter.ofPattern("dd-MM-yyyy")) : "";
-                out.printf("    [%c] %d: %s%s%n", (task.isDone() ? 'x' : ' '), task.getId(), task.getDescription(), deadlineStr);
+                printTask(task);
             }
             out.println();
         }
@@ -146,10 +223,12 @@ public final class TaskCLI implements Runnable {
         }
     }
 
-
+    // check, uncheck and deadline are unconditional: a command names a task by ID only, not the version the
+    // user last saw, so the last change to a task wins
     private void check(String idString) {
         long id = Long.parseLong(idString);
-        service.setTaskDone(id, true);    }
+        service.setTaskDone(id, true);
+    }
 
     private void uncheck(String idString) {
         long id = Long.parseLong(idString);
@@ -176,13 +255,7 @@ public final class TaskCLI implements Runnable {
         for (Map.Entry<String, List<Task>> project : todayTasks.entrySet()) {
             out.println(project.getKey());
             for (Task task : project.getValue()) {
-                String deadlineStr = " " + task.getDeadline().format(DATE_FORMAT);
-                out.printf("    [%c] %d: %s%s%n",
-                        (task.isDone() ? 'x' : ' '),
-                        task.getId(),
-                        task.getDescription(),
-                        deadlineStr
-                );
+                printTask(task);
             }
             out.println();
         }
@@ -193,24 +266,105 @@ public final class TaskCLI implements Runnable {
         // Print tasks with deadlines
         for (Map.Entry<LocalDate, Map<String, List<Task>>> entry : view.byDeadline.entrySet()) {
             out.println(entry.getKey().format(DATE_FORMAT) + ":");
-            for (Map.Entry<String, List<Task>> project : entry.getValue().entrySet()) {
-                out.println("    " + project.getKey() + ":");
-                for (Task task : project.getValue()) {
-                    out.printf("        %d: %s%n", task.getId(), task.getDescription());
-                }
-            }
+            printProjects(entry.getValue());
         }
 
         // Print tasks without deadlines
         if (!view.noDeadline.isEmpty()) {
             out.println("No deadline:");
-            for (Map.Entry<String, List<Task>> project : view.noDeadline.entrySet()) {
-                out.println("    " + project.getKey() + ":");
-                for (Task task : project.getValue()) {
-                    out.printf("        %d: %s%n", task.getId(), task.getDescription());
-                }
+            printProjects(view.noDeadline);
+        }
+        out.println();
+    }
+
+    private void stats() {
+        for (Map.Entry<String, TaskStats> project : service.getProjectStats().entrySet()) {
+            TaskStats stats = project.getValue();
+            out.print(project.getKey());
+            out.print(": ");
+            out.print(stats.open());
+            out.print(" open, ");
+            out.print(stats.done());
+            out.print(" done, ");
+            out.print(stats.overdue());
+            out.print(" overdue, ");
+            out.print(stats.noDeadline());
+            out.println(" without deadline");
+        }
+        out.println();
+    }
+
+    private void upcoming(String daysString) {
+        int days = Integer.parseInt(daysString.trim());
+        if (days <= 0) {
+            printUsage("upcoming <days>");
+            return;
+        }
+        printByDeadline(service.getUpcomingTasks(days));
+    }
+
+    private void deadlineCounts(String args) {
+        String[] range = args.trim().split("\\s+");
+        if (range.length != 2) {
+            printUsage("deadline-counts <dd-MM-yyyy> <dd-MM-yyyy>");
+            return;
+        }
+        LocalDate from = LocalDate.parse(range[0], DATE_FORMAT);
+        LocalDate to = LocalDate.parse(range[1], DATE_FORMAT);
+        for (Map.Entry<LocalDate, Integer> day : service.countTasksByDeadline(from, to).entrySet()) {
+            out.print(day.getKey().format(DATE_FORMAT));
+            out.print(": ");
+            out.println(day.getValue());
+        }
+        out.println();
+    }
+
+    private void printByDeadline(Map<LocalDate, Map<String, List<Task>>> byDeadline) {
+        for (Map.Entry<LocalDate, Map<String, List<Task>>> entry : byDeadline.entrySet()) {
+            out.println(entry.getKey().format(DATE_FORMAT) + ":");
+            printProjects(entry.getValue());
+        }
+        out.println();
+    }
+
+    private void printProjects(Map<String, List<Task>> projects) {
+        for (Map.Entry<String, List<Task>> project : projects.entrySet()) {
+            out.println("    " + project.getKey() + ":");
+            for (Task task : project.getValue()) {
+                out.print("        ");
+                out.print(task.getId());
+                out.print(": ");
+                out.println(task.getDescription());
             }
         }
+    }
+
+    private void search(String query) {
+        List<SearchHit> hits = service.search(query, SEARCH_LIMIT);
+        if (hits.isEmpty()) {
+            out.println("No tasks found.");
+            return;
+        }
+        for (SearchHit hit : hits) {
+            out.print(hit.project());
+            out.print(':');
+            printTask(hit.task());
+        }
+        out.println();
+    }
+
+    // Plain prints instead of printf, which parses its format string on every call
+    private void printTask(Task task) {
+        out.print("    [");
+        out.print(task.isDone() ? 'x' : ' ');
+        out.print("] ");
+        out.print(task.getId());
+        out.print(": ");
+        out.print(task.getDescription());
+        if (task.getDeadline() != null) {
+            out.print(' ');
+            out.print(DATE_FORMAT.format(task.getDeadline()));
+        }
         out.println();
     }
 
@@ -224,12 +378,16 @@ public final class TaskCLI implements Runnable {
         out.println("  deadline <task ID> <dd-MM-yyyy>");
         out.println("  today");
         out.println("  view-by-deadline");
+        out.println("  stats");
+        out.println("  overdue");
+        out.println("  upcoming <days>");
+        out.println("  deadline-counts <dd-MM-yyyy> <dd-MM-yyyy>");
+        out.println("  search <words>");
         out.println();
     }
 
     private void error(String command) {
-        out.printf("I don't know what the command \"%s\" is.", command);
-        out.println();
+        fail("I don't know what the command \"" + command + "\" is.");
     }
 
     private boolean hasArgs(String[] commandRest) {
@@ -237,7 +395,12 @@ public final class TaskCLI implements Runnable {
     }
 
     private void printUsage(String usage) {
-        out.println("Usage: " + usage);
+        fail("Usage: " + usage);
+    }
+
+    private void fail(String message) {
+        out.println(message);
+        lastError = message;
     }
 
 
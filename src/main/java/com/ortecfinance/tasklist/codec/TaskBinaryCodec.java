@@ -0,0 +1,129 @@
+package com.ortecfinance.tasklist.codec;
+
+import com.ortecfinance.tasklist.model.Task;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+
+// Compact binary form of task payloads, served as application/x-tasklist. Big-endian through Data streams.
+//
+// A task is length-prefixed: int byte length of what follows, then long id, long version, int deadline as
+// epoch day (NO_DEADLINE if it has none), byte done and the description's UTF-8 bytes filling the rest.
+// The prefix lets a reader skip a task without decoding it. A task list is an int count plus its tasks;
+// projects are an int count and per project its name and task list; tasks by deadline are an int count
+// and per date its int epoch day and projects; the deadline view is its tasks by deadline followed by the
+// projects of tasks without one. Strings are an int byte length plus UTF-8.
+public final class TaskBinaryCodec {
+
+    public static final String MEDIA_TYPE = "application/x-tasklist";
+
+    private static final int NO_DEADLINE = Integer.MIN_VALUE;
+    // id, version, deadline and done
+    private static final int FIXED_TASK_BYTES = Long.BYTES + Long.BYTES + Integer.BYTES + 1;
+
+    private TaskBinaryCodec() {
+    }
+
+    public static void writeTask(DataOutput out, Task task) throws IOException {
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(FIXED_TASK_BYTES + description.length);
+        out.writeLong(task.getId());
+        out.writeLong(task.getVersion());
+        out.writeInt(epochDay(task.getDeadline()));
+        out.writeBoolean(task.isDone());
+        out.write(description);
+    }
+
+    public static Task readTask(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < FIXED_TASK_BYTES) {
+            throw new IOException("Invalid task length: " + length);
+        }
+        long id = in.readLong();
+        long version = in.readLong();
+        int deadline = in.readInt();
+        boolean done = in.readBoolean();
+        byte[] description = new byte[length - FIXED_TASK_BYTES];
+        in.readFully(description);
+        return new Task(id, new String(description, StandardCharsets.UTF_8), done,
+                deadline == NO_DEADLINE ? null : LocalDate.ofEpochDay(deadline), version);
+    }
+
+    public static void writeTasks(DataOutput out, List<Task> tasks) throws IOException {
+        out.writeInt(tasks.size());
+        for (Task task : tasks) {
+            writeTask(out, task);
+        }
+    }
+
+    public static List<Task> readTasks(DataInput in) throws IOException {
+        int count = in.readInt();
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(readTask(in));
+        }
+        return tasks;
+    }
+
+    public static void writeProjects(DataOutput out, Map<String, List<Task>> projects) throws IOException {
+        out.writeInt(projects.size());
+        for (Map.Entry<String, List<Task>> project : projects.entrySet()) {
+            writeString(out, project.getKey());
+            writeTasks(out, project.getValue());
+        }
+    }
+
+    // Projects in the order they were written
+    public static Map<String, List<Task>> readProjects(DataInput in) throws IOException {
+        int count = in.readInt();
+        Map<String, List<Task>> projects = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = readString(in);
+            projects.put(name, readTasks(in));
+        }
+        return projects;
+    }
+
+    public static void writeByDeadline(DataOutput out, Map<LocalDate, Map<String, List<Task>>> byDeadline)
+            throws IOException {
+        out.writeInt(byDeadline.size());
+        for (Map.Entry<LocalDate, Map<String, List<Task>>> date : byDeadline.entrySet()) {
+            out.writeInt(epochDay(date.getKey()));
+            writeProjects(out, date.getValue());
+        }
+    }
+
+    public static SortedMap<LocalDate, Map<String, List<Task>>> readByDeadline(DataInput in) throws IOException {
+        int count = in.readInt();
+        SortedMap<LocalDate, Map<String, List<Task>>> byDeadline = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            LocalDate date = LocalDate.ofEpochDay(in.readInt());
+            byDeadline.put(date, readProjects(in));
+        }
+        return byDeadline;
+    }
+
+    public static void writeDeadlineView(DataOutput out, Map<LocalDate, Map<String, List<Task>>> byDeadline,
+                                         Map<String, List<Task>> noDeadline) throws IOException {
+        writeByDeadline(out, byDeadline);
+        writeProjects(out, noDeadline);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int epochDay(LocalDate date) {
+        return date == null ? NO_DEADLINE : Math.toIntExact(date.toEpochDay());
+    }
+}
@@ -0,0 +1,93 @@
+package com.ortecfinance.tasklist.codec;
+
+import com.ortecfinance.tasklist.model.Task;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+// Writes task lists, projects and tasks by deadline as application/x-tasklist (see TaskBinaryCodec).
+// Only responses whose declared type is one of those shapes qualify; everything else stays with Jackson.
+// Register it after the JSON converter, so clients that accept anything keep getting JSON.
+public final class TaskBinaryHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(TaskBinaryCodec.MEDIA_TYPE);
+
+    private static final ResolvableType TASKS = ResolvableType.forClassWithGenerics(List.class, Task.class);
+    private static final ResolvableType PROJECTS = ResolvableType.forClassWithGenerics(Map.class,
+            ResolvableType.forClass(String.class), TASKS);
+    private static final ResolvableType BY_DEADLINE = ResolvableType.forClassWithGenerics(Map.class,
+            ResolvableType.forClass(LocalDate.class), PROJECTS);
+
+    private enum Shape { TASKS, PROJECTS, BY_DEADLINE }
+
+    public TaskBinaryHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz) || Map.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return canWrite(mediaType) && shape(type != null ? type : clazz) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputMessage.getBody(), 1 << 16));
+        switch (shape(type != null ? type : body.getClass())) {
+            case TASKS -> TaskBinaryCodec.writeTasks(out, (List<Task>) body);
+            case PROJECTS -> TaskBinaryCodec.writeProjects(out, (Map<String, List<Task>>) body);
+            case BY_DEADLINE -> TaskBinaryCodec.writeByDeadline(out, (Map<LocalDate, Map<String, List<Task>>>) body);
+        }
+        out.flush();
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Reading " + MEDIA_TYPE + " is not supported.", inputMessage);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        return readInternal(null, inputMessage);
+    }
+
+    private static Shape shape(Type type) {
+        ResolvableType declared = ResolvableType.forType(type);
+        if (TASKS.isAssignableFrom(declared)) {
+            return Shape.TASKS;
+        }
+        if (PROJECTS.isAssignableFrom(declared)) {
+            return Shape.PROJECTS;
+        }
+        if (BY_DEADLINE.isAssignableFrom(declared)) {
+            return Shape.BY_DEADLINE;
+        }
+        return null;
+    }
+}
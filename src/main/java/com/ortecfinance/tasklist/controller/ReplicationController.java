@@ -0,0 +1,39 @@
+package com.ortecfinance.tasklist.controller;
+
+import com.ortecfinance.tasklist.replication.ReplicaClient;
+import com.ortecfinance.tasklist.replication.ReplicationServer;
+import com.ortecfinance.tasklist.replication.ReplicationStatus;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/replication")
+public class ReplicationController {
+
+    // at most one of them exists, depending on tasklist.replication.role
+    private final ObjectProvider<ReplicationServer> server;
+    private final ObjectProvider<ReplicaClient> client;
+
+    public ReplicationController(ObjectProvider<ReplicationServer> server, ObjectProvider<ReplicaClient> client) {
+        this.server = server;
+        this.client = client;
+    }
+
+    // GET /replication
+    @GetMapping
+    public ResponseEntity<ReplicationStatus> status() {
+        ReplicationServer primary = server.getIfAvailable();
+        if (primary != null) {
+            return ResponseEntity.ok(primary.status());
+        }
+        ReplicaClient follower = client.getIfAvailable();
+        if (follower != null) {
+            return ResponseEntity.ok(follower.status());
+        }
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
+}
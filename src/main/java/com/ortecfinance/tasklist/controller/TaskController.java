@@ -1,15 +1,45 @@
 package com.ortecfinance.tasklist.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.ortecfinance.tasklist.codec.TaskBinaryCodec;
+import com.ortecfinance.tasklist.codec.TaskBinaryHttpMessageConverter;
+import com.ortecfinance.tasklist.events.ChangeFeed;
+import com.ortecfinance.tasklist.events.TaskEvent;
 import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.repository.TaskQuery;
+import com.ortecfinance.tasklist.repository.TaskRepository;
+import com.ortecfinance.tasklist.repository.TaskSnapshot;
+import com.ortecfinance.tasklist.repository.TaskStats;
+import com.ortecfinance.tasklist.service.BatchResult;
+import com.ortecfinance.tasklist.service.ProjectPage;
+import com.ortecfinance.tasklist.service.SearchHit;
 import com.ortecfinance.tasklist.service.TaskService;
+import com.ortecfinance.tasklist.service.TaskVersionConflictException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,10 +49,40 @@ public class TaskController {
 
     private static final Logger log = LoggerFactory.getLogger(TaskController.class);
 
+    private static final String NDJSON = "application/x-ndjson";
+    static final String SMILE = "application/x-jackson-smile";
+    private static final int STREAM_PAGE_SIZE = 1_000;
+    private static final int MAX_BATCH_SIZE = 10_000;
+    private static final int MAX_RESULT_LIMIT = 1_000;
+    private static final long EVENTS_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    // The negotiated representations of the task views and the suffix each adds to an entity tag, so a cache
+    // never answers one representation with another; in order of preference when several are accepted equally
+    private static final Map<MediaType, String> REPRESENTATIONS = new LinkedHashMap<>();
+
+    static {
+        REPRESENTATIONS.put(MediaType.APPLICATION_JSON, "json");
+        REPRESENTATIONS.put(MediaType.APPLICATION_CBOR, "cbor");
+        REPRESENTATIONS.put(MediaType.parseMediaType(SMILE), "smile");
+        REPRESENTATIONS.put(TaskBinaryHttpMessageConverter.MEDIA_TYPE, "tasklist");
+    }
+
     private final TaskService service;
+    private final ObjectMapper objectMapper;
+    // one cache per representation
+    private final Map<MediaType, VersionedViewCache> deadlineViews = new LinkedHashMap<>();
 
-    public TaskController(TaskService service) {
+    public TaskController(TaskService service, ObjectMapper objectMapper) {
         this.service = service;
+        this.objectMapper = objectMapper;
+        deadlineView(MediaType.APPLICATION_JSON, objectMapper::writeValueAsBytes);
+        deadlineView(MediaType.APPLICATION_CBOR, objectMapper.copyWith(new CBORFactory())::writeValueAsBytes);
+        deadlineView(MediaType.parseMediaType(SMILE), objectMapper.copyWith(new SmileFactory())::writeValueAsBytes);
+        deadlineView(TaskBinaryHttpMessageConverter.MEDIA_TYPE, TaskController::encodeDeadlineView);
+    }
+
+    private void deadlineView(MediaType type, VersionedViewCache.Encoder encoder) {
+        deadlineViews.put(type, new VersionedViewCache(service::getVersion, service::getTasksByDeadline, encoder));
     }
 
     private static final DateTimeFormatter DEADLINE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy");
@@ -31,7 +91,7 @@ public class TaskController {
     @PostMapping
     public ResponseEntity<Void> createProject(@RequestBody CreateProjectRequest request) {
         String name = request == null ? null : request.name();
-        log.info("POST /projects name={}", name);
+        log.debug("POST /projects name={}", name);
 
         if (name == null || name.isBlank()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
@@ -41,17 +101,159 @@ public class TaskController {
             service.addProject(name);
             return ResponseEntity.status(HttpStatus.CREATED).build();
         } catch (IllegalArgumentException e) {
-            log.info("POST /projects -> 400 ({})", e.getMessage());
+            log.debug("POST /projects -> 400 ({})", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
 
     // GET /projects
-    @GetMapping
-    public Map<String, List<Task>> getProjects() {
-        Map<String, List<Task>> projects = service.getAllProjectsWithTasks();
-        log.info("GET /projects -> {} project(s)", projects.size());
-        return projects;
+    // Answers If-None-Match with 304 from the version alone, without taking a snapshot
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, SMILE,
+            TaskBinaryCodec.MEDIA_TYPE})
+    public ResponseEntity<Map<String, List<Task>>> getProjects(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest request
+    ) {
+        MediaType type = negotiate(accept, REPRESENTATIONS.keySet());
+        String tag = representationTag(service.getVersionTag(), type);
+        if (request.checkNotModified(tag)) {
+            log.debug("GET /projects -> 304");
+            return notModified(tag);
+        }
+        TaskSnapshot snapshot = service.getSnapshot();
+        log.debug("GET /projects -> {} project(s) as {}", snapshot.projects().size(), type);
+        return ResponseEntity.ok()
+                .eTag(representationTag(service.versionTag(snapshot.version()), type))
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(type)
+                .body(snapshot.projects());
+    }
+
+    // GET /projects/page?cursor=...&limit=...
+    @GetMapping("/page")
+    public ResponseEntity<ProjectPage> getProjectsPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "500") int limit,
+            WebRequest request
+    ) {
+        // taken before the page is built, so a write in between can only cause an extra 200, never a stale 304
+        String tag = service.getVersionTag();
+        if (request.checkNotModified(tag)) {
+            log.debug("GET /projects/page -> 304");
+            // not negotiated, so unlike notModified it varies by nothing
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).build();
+        }
+        try {
+            ProjectPage page = service.getProjectsPage(cursor, limit);
+            log.debug("GET /projects/page -> {} project(s)", page.projects().size());
+            return ResponseEntity.ok().eTag(tag).body(page);
+        } catch (IllegalArgumentException e) {
+            log.debug("GET /projects/page -> 400 ({})", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    // GET /projects/stream
+    // One JSON object per line, all from one snapshot, written a line at a time so the encoded payload is
+    // never held in memory. The snapshot shares the repository's immutable lists, so taking it copies nothing.
+    // A line holds at most STREAM_PAGE_SIZE tasks: a larger project comes as several consecutive lines with
+    // the same name, which a client appends to one another.
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamProjects() {
+        log.debug("GET /projects/stream");
+        TaskSnapshot snapshot = service.getSnapshot();
+        StreamingResponseBody body = out -> {
+            for (Map.Entry<String, List<Task>> project : snapshot.projects().entrySet()) {
+                List<Task> tasks = project.getValue();
+                int from = 0;
+                do {
+                    int to = Math.min(tasks.size(), from + STREAM_PAGE_SIZE);
+                    ProjectPage.ProjectTasks line = new ProjectPage.ProjectTasks(project.getKey(), tasks.subList(from, to));
+                    out.write(objectMapper.writeValueAsBytes(line));
+                    out.write('\n');
+                    from = to;
+                } while (from < tasks.size());
+                out.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    // GET /projects/events
+    // Server-Sent Events stream of changes. A reconnecting client sends the last event ID it saw
+    // (Last-Event-ID header or lastEventId parameter) and gets what it missed first. A "reset" event
+    // means that point is gone: reload GET /projects and reconnect without an ID.
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) Long lastEventIdParam
+    ) {
+        long lastEventId = lastEventIdHeader != null ? lastEventIdHeader
+                : lastEventIdParam != null ? lastEventIdParam : 0;
+        log.debug("GET /projects/events lastEventId={}", lastEventId);
+
+        SseEmitter emitter = new SseEmitter(EVENTS_TIMEOUT_MS);
+        ChangeFeed.Subscription subscription = service.getChangeFeed().subscribe(lastEventId, new ChangeFeed.Subscriber() {
+            @Override
+            public void onEvent(ChangeFeed.Entry entry) throws IOException {
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(entry.id()))
+                        .name(eventName(entry.event()))
+                        .data(entry.event(), MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void onClose(ChangeFeed.CloseReason reason) {
+                log.debug("GET /projects/events closed ({})", reason);
+                if (reason == ChangeFeed.CloseReason.HISTORY_LOST) {
+                    try {
+                        emitter.send(SseEmitter.event().name("reset").data(""));
+                    } catch (IOException e) {
+                        // the client is gone already
+                    }
+                }
+                // a slow client is disconnected and resumes from its last event ID when it reconnects
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        return emitter;
+    }
+
+    private static String eventName(TaskEvent event) {
+        return switch (event) {
+            case TaskEvent.ProjectAdded e -> "project-added";
+            case TaskEvent.TaskAdded e -> "task-added";
+            case TaskEvent.DoneChanged e -> "task-done";
+            case TaskEvent.DeadlineChanged e -> "task-deadline";
+        };
+    }
+
+    // GET /projects/{projectId}/tasks
+    // Tagged with the project's own version, so it stays 304 while other projects change
+    @GetMapping(value = "/{projectId}/tasks", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, SMILE, TaskBinaryCodec.MEDIA_TYPE})
+    public ResponseEntity<List<Task>> getProjectTasks(
+            @PathVariable String projectId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest request
+    ) {
+        try {
+            MediaType type = negotiate(accept, REPRESENTATIONS.keySet());
+            String tag = representationTag(service.getProjectVersionTag(projectId), type);
+            if (request.checkNotModified(tag)) {
+                log.debug("GET /projects/{}/tasks -> 304", projectId);
+                return notModified(tag);
+            }
+            List<Task> tasks = service.getProjectTasks(projectId);
+            log.debug("GET /projects/{}/tasks -> {} task(s) as {}", projectId, tasks.size(), type);
+            return ResponseEntity.ok().eTag(tag).varyBy(HttpHeaders.ACCEPT).contentType(type).body(tasks);
+        } catch (IllegalStateException e) {
+            log.debug("GET /projects/{}/tasks -> 404 ({})", projectId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
     }
 
     // POST /projects/{projectId}/tasks
@@ -64,45 +266,334 @@ public class TaskController {
         String description = request == null ? null : request.description();
 
         if (description == null || description.isBlank()) {
-            log.info("POST /projects/{}/tasks -> 400 (missing/blank description)", projectId);
+            log.debug("POST /projects/{}/tasks -> 400 (missing/blank description)", projectId);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
 
-        log.info("POST /projects/{}/tasks description={}", projectId, description);
+        log.debug("POST /projects/{}/tasks ({} chars)", projectId, description.length());
 
         try {
             service.addTask(projectId, description);
             return ResponseEntity.status(HttpStatus.CREATED).build();
         } catch (IllegalArgumentException e) {
-            log.info("POST /projects/{}/tasks -> 404/400 ({})", projectId, e.getMessage());
+            log.debug("POST /projects/{}/tasks -> 404/400 ({})", projectId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    // GET /projects/{projectId}/tasks/{taskId}
+    // One task, tagged with its version for a later conditional update
+    @GetMapping("/{projectId}/tasks/{taskId}")
+    public ResponseEntity<Task> getTask(@PathVariable String projectId, @PathVariable long taskId) {
+        //projectId is currently not used because tasks are looked up by ID
+        try {
+            Task task = service.getTask(taskId);
+            log.debug("GET /projects/{}/tasks/{} -> version {}", projectId, taskId, task.getVersion());
+            return ResponseEntity.ok().eTag(service.getTaskVersionTag(task)).body(task);
+        } catch (IllegalStateException e) {
+            log.debug("GET /projects/{}/tasks/{} -> 404 ({})", projectId, taskId, e.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
 
     // PUT /projects/{projectId}/tasks/{taskId}?deadline=dd-MM-yyyy
+    // The task's version is in its ETag. With If-Match the deadline is only set while the task is still at one of
+    // the listed versions, otherwise 412 with the current ETag; the check and the write are one atomic step.
+    // A store without conditional updates answers If-Match with 501 and changes nothing.
     @PutMapping("/{projectId}/tasks/{taskId}")
     public ResponseEntity<Void> updateTaskDeadline(
             @PathVariable String projectId,
             @PathVariable long taskId,
-            @RequestParam("deadline") String deadline
+            @RequestParam("deadline") String deadline,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
         //projectId is currently not used because tasks are looked up by ID
-        log.info("PUT /projects/{}/tasks/{} deadline={}", projectId, taskId, deadline);
+        log.debug("PUT /projects/{}/tasks/{} deadline={} If-Match={}", projectId, taskId, deadline, ifMatch);
 
         LocalDate date = LocalDate.parse(deadline, DEADLINE_FORMATTER);
-        service.setTaskDeadline(taskId, date);
+        try {
+            Task updated;
+            if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+                updated = service.setTaskDeadline(taskId, date);
+            } else if (!service.supportsConditionalUpdates()) {
+                log.debug("PUT /projects/{}/tasks/{} -> 501 (no conditional updates)", projectId, taskId);
+                return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
+            } else {
+                Task current = service.getTask(taskId);
+                if (!matchedVersions(ifMatch).contains(current.getVersion())) {
+                    log.debug("PUT /projects/{}/tasks/{} -> 412 (at version {})", projectId, taskId, current.getVersion());
+                    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(taskTag(current)).build();
+                }
+                // a writer that got in after the read above makes this fail with a conflict
+                updated = service.setTaskDeadline(taskId, date, current.getVersion());
+            }
+            return ResponseEntity.noContent().eTag(taskTag(updated)).build();
+        } catch (TaskVersionConflictException e) {
+            log.debug("PUT /projects/{}/tasks/{} -> 412 ({})", projectId, taskId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(taskTag(e.getCurrent())).build();
+        } catch (IllegalStateException e) {
+            log.debug("PUT /projects/{}/tasks/{} -> 404 ({})", projectId, taskId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    private String taskTag(Task task) {
+        return service.getTaskVersionTag(task);
+    }
+
+    // Versions named by the strong task tags of an If-Match list; weak tags, other kinds of tag and tags
+    // from another instance or an earlier run can never match
+    private Set<Long> matchedVersions(String ifMatch) {
+        Set<Long> versions = new HashSet<>();
+        for (String tag : ifMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.length() > 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+                service.taskVersionOf(trimmed.substring(1, trimmed.length() - 1)).ifPresent(versions::add);
+            }
+        }
+        return versions;
+    }
+
+    // POST /projects/tasks/batch
+    // Creates tasks across projects in one call; a missing project fails only its own item
+    @PostMapping("/tasks/batch")
+    public ResponseEntity<BatchResult> createTasks(@RequestBody BatchCreateTasksRequest request) {
+        List<BatchCreateTasksRequest.Item> items = request == null ? null : request.tasks();
+        if (!isValidBatchSize(items) || items.stream().anyMatch(item -> item == null
+                || item.project() == null || item.description() == null || item.description().isBlank())) {
+            log.debug("POST /projects/tasks/batch -> 400 (invalid batch)");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
 
-        return ResponseEntity.noContent().build();
+        BatchResult result = service.addTasks(items.stream()
+                .map(item -> new TaskRepository.NewTask(item.project(), item.description()))
+                .toList());
+        log.debug("POST /projects/tasks/batch -> {} created, {} failed", result.succeeded(), result.failed());
+        return ResponseEntity.ok(result);
+    }
+
+    // PUT /projects/tasks/deadlines
+    // Deadlines use the dd-MM-yyyy format of the single-task endpoint
+    @PutMapping("/tasks/deadlines")
+    public ResponseEntity<BatchResult> updateTaskDeadlines(@RequestBody BatchDeadlinesRequest request) {
+        List<BatchDeadlinesRequest.Item> items = request == null ? null : request.deadlines();
+        if (!isValidBatchSize(items) || items.stream().anyMatch(item -> item == null
+                || item.taskId() == null || item.deadline() == null)) {
+            log.debug("PUT /projects/tasks/deadlines -> 400 (invalid batch)");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        List<TaskRepository.DeadlineChange> changes;
+        try {
+            changes = items.stream()
+                    .map(item -> new TaskRepository.DeadlineChange(
+                            item.taskId(), LocalDate.parse(item.deadline(), DEADLINE_FORMATTER)))
+                    .toList();
+        } catch (DateTimeParseException e) {
+            log.debug("PUT /projects/tasks/deadlines -> 400 ({})", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        BatchResult result = service.setTaskDeadlines(changes);
+        log.debug("PUT /projects/tasks/deadlines -> {} updated, {} failed", result.succeeded(), result.failed());
+        return ResponseEntity.ok(result);
+    }
+
+    // PUT /projects/tasks/done
+    // Checks or unchecks many tasks at once
+    @PutMapping("/tasks/done")
+    public ResponseEntity<BatchResult> updateTasksDone(@RequestBody BatchDoneRequest request) {
+        List<BatchDoneRequest.Item> items = request == null ? null : request.tasks();
+        if (!isValidBatchSize(items) || items.stream().anyMatch(item -> item == null
+                || item.taskId() == null || item.done() == null)) {
+            log.debug("PUT /projects/tasks/done -> 400 (invalid batch)");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        BatchResult result = service.setTasksDone(items.stream()
+                .map(item -> new TaskRepository.DoneChange(item.taskId(), item.done()))
+                .toList());
+        log.debug("PUT /projects/tasks/done -> {} updated, {} failed", result.succeeded(), result.failed());
+        return ResponseEntity.ok(result);
+    }
+
+    private static boolean isValidBatchSize(List<?> items) {
+        return items != null && !items.isEmpty() && items.size() <= MAX_BATCH_SIZE;
+    }
+
+    // GET /projects/tasks?project=...&done=...&deadlineFrom=dd-MM-yyyy&deadlineTo=dd-MM-yyyy&sort=id|deadline&limit=...
+    @GetMapping("/tasks")
+    public ResponseEntity<TaskQuery.Result> queryTasks(
+            @RequestParam(value = "project", required = false) String project,
+            @RequestParam(value = "done", required = false) Boolean done,
+            @RequestParam(value = "deadlineFrom", required = false) String deadlineFrom,
+            @RequestParam(value = "deadlineTo", required = false) String deadlineTo,
+            @RequestParam(value = "sort", defaultValue = "id") String sort,
+            @RequestParam(value = "limit", defaultValue = "100") int limit
+    ) {
+        if (limit > MAX_RESULT_LIMIT) {
+            log.debug("GET /projects/tasks -> 400 (limit {} too large)", limit);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        try {
+            TaskQuery query = new TaskQuery(project, done, parseDate(deadlineFrom), parseDate(deadlineTo),
+                    TaskQuery.Sort.valueOf(sort.toUpperCase()), limit);
+            TaskQuery.Result result = service.queryTasks(query);
+            log.debug("GET /projects/tasks -> {} task(s) via {}", result.tasks().size(), result.plan());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            log.debug("GET /projects/tasks -> 400 ({})", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (IllegalStateException e) {
+            log.debug("GET /projects/tasks -> 404 ({})", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    private static LocalDate parseDate(String date) {
+        return date == null || date.isBlank() ? null : LocalDate.parse(date, DEADLINE_FORMATTER);
+    }
+
+    // GET /projects/search?q=...&limit=...
+    @GetMapping("/search")
+    public ResponseEntity<List<SearchHit>> search(
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(value = "limit", defaultValue = "20") int limit
+    ) {
+        if (limit > MAX_RESULT_LIMIT) {
+            log.debug("GET /projects/search -> 400 (limit {} too large)", limit);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        try {
+            List<SearchHit> hits = service.search(query, limit);
+            log.debug("GET /projects/search -> {} hit(s)", hits.size());
+            return ResponseEntity.ok(hits);
+        } catch (IllegalArgumentException e) {
+            log.debug("GET /projects/search -> 400 ({})", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
     }
 
     // GET /projects/view_by_deadline
-    @GetMapping("/view_by_deadline")
-    public TaskService.DeadlineView viewByDeadline() {
-        TaskService.DeadlineView view = service.getTasksByDeadline();
-        log.info("GET /projects/view_by_deadline");
-        return view;
+    // Served from bytes cached per repository version and representation; only the first read of a
+    // representation after a write builds the view. JSON unless Accept prefers CBOR, Smile or x-tasklist.
+    @GetMapping(value = "/view_by_deadline", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, SMILE, TaskBinaryCodec.MEDIA_TYPE})
+    public ResponseEntity<byte[]> viewByDeadline(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest request
+    ) {
+        MediaType type = negotiate(accept, deadlineViews.keySet());
+        String tag = representationTag(service.getVersionTag(), type);
+        if (request.checkNotModified(tag)) {
+            log.debug("GET /projects/view_by_deadline -> 304");
+            return notModified(tag);
+        }
+        VersionedViewCache.Entry view = deadlineViews.get(type).get();
+        log.debug("GET /projects/view_by_deadline as {}", type);
+        return ResponseEntity.ok()
+                .eTag(representationTag(service.versionTag(view.version()), type))
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(type)
+                .body(view.bytes());
+    }
+
+    private static String representationTag(String tag, MediaType type) {
+        return tag + "-" + REPRESENTATIONS.get(type);
+    }
+
+    // A 304 carries the same Vary as the 200 it stands for
+    private static <T> ResponseEntity<T> notModified(String tag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).varyBy(HttpHeaders.ACCEPT).build();
+    }
+
+    // The first offered type the most preferred accepted range matches; the mapping's produces condition
+    // has already turned away requests that accept none of them
+    private static MediaType negotiate(String accept, Iterable<MediaType> offered) {
+        MediaType fallback = offered.iterator().next();
+        if (accept == null || accept.isBlank()) {
+            return fallback;
+        }
+        List<MediaType> accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        // stable, so equally preferred ranges keep the client's order
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType range : accepted) {
+            if (range.getQualityValue() == 0) {
+                break;
+            }
+            for (MediaType type : offered) {
+                if (range.includes(type)) {
+                    return type;
+                }
+            }
+        }
+        return fallback;
+    }
+
+    private static byte[] encodeDeadlineView(Object view) throws IOException {
+        TaskService.DeadlineView deadlines = (TaskService.DeadlineView) view;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        TaskBinaryCodec.writeDeadlineView(out, deadlines.byDeadline, deadlines.noDeadline);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    // GET /projects/stats
+    // Answered from per-project counters, in time proportional to the number of projects
+    @GetMapping("/stats")
+    public Map<String, TaskStats> stats() {
+        log.debug("GET /projects/stats");
+        return service.getProjectStats();
+    }
+
+    // GET /projects/overdue
+    @GetMapping("/overdue")
+    public SortedMap<LocalDate, Map<String, List<Task>>> overdue() {
+        log.debug("GET /projects/overdue");
+        return service.getOverdueTasks();
+    }
+
+    // GET /projects/upcoming?days=7
+    @GetMapping("/upcoming")
+    public ResponseEntity<SortedMap<LocalDate, Map<String, List<Task>>>> upcoming(
+            @RequestParam(value = "days", defaultValue = "7") int days
+    ) {
+        try {
+            return ResponseEntity.ok(service.getUpcomingTasks(days));
+        } catch (IllegalArgumentException e) {
+            log.debug("GET /projects/upcoming -> 400 ({})", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    // GET /projects/deadline_counts?from=dd-MM-yyyy&to=dd-MM-yyyy
+    @GetMapping("/deadline_counts")
+    public ResponseEntity<SortedMap<LocalDate, Integer>> deadlineCounts(
+            @RequestParam("from") String from,
+            @RequestParam("to") String to
+    ) {
+        try {
+            return ResponseEntity.ok(service.countTasksByDeadline(
+                    LocalDate.parse(from, DEADLINE_FORMATTER), LocalDate.parse(to, DEADLINE_FORMATTER)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            log.debug("GET /projects/deadline_counts -> 400 ({})", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
     }
 
     public record CreateProjectRequest(String name) {}
     public record CreateTaskRequest(String description) {}
+
+    public record BatchCreateTasksRequest(List<Item> tasks) {
+        public record Item(String project, String description) {}
+    }
+
+    public record BatchDeadlinesRequest(List<Item> deadlines) {
+        public record Item(Long taskId, String deadline) {}
+    }
+
+    public record BatchDoneRequest(List<Item> tasks) {
+        public record Item(Long taskId, Boolean done) {}
+    }
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.ortecfinance.tasklist.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Encoded bytes of a view, built at most once per repository version. Reads between writes return
+// the same bytes without building or encoding anything; the first read after a write rebuilds them.
+// Readers that find a stale entry share one rebuild instead of each building the view.
+//
+// The version is read before the view is built, so an entry is never older than its version.
+final class VersionedViewCache {
+
+    @FunctionalInterface
+    interface Encoder {
+        byte[] encode(Object view) throws IOException;
+    }
+
+    record Entry(long version, byte[] bytes) {}
+
+    private final LongSupplier version;
+    private final Supplier<?> view;
+    private final Encoder encoder;
+    private final Lock rebuildLock = new ReentrantLock();
+    private volatile Entry entry;
+
+    VersionedViewCache(LongSupplier version, Supplier<?> view, Encoder encoder) {
+        this.version = version;
+        this.view = view;
+        this.encoder = encoder;
+    }
+
+    // The returned bytes are shared between callers and must not be modified
+    Entry get() {
+        long current = version.getAsLong();
+        Entry cached = entry;
+        if (cached != null && cached.version() >= current) {
+            return cached;
+        }
+        rebuildLock.lock();
+        try {
+            // another reader may have rebuilt it while this one waited
+            cached = entry;
+            if (cached != null && cached.version() >= current) {
+                return cached;
+            }
+            long building = version.getAsLong();
+            Entry rebuilt = new Entry(building, encoder.encode(view.get()));
+            entry = rebuilt;
+            return rebuilt;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+}
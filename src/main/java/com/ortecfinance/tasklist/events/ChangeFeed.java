@@ -0,0 +1,195 @@
+package com.ortecfinance.tasklist.events;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-memory feed of TaskEvents. Every event gets the next ID and is kept in a ring of the last
+// historySize events, so a subscriber that reconnects with the last ID it saw gets what it missed.
+//
+// Each subscriber has a bounded queue drained by its own virtual thread. publish() never waits on a
+// subscriber: one whose queue is full is evicted and can resume from its last ID once it reconnects.
+// Subscriber code only ever runs on the drainer, onClose included, so a publisher that holds write locks
+// never calls into it.
+public final class ChangeFeed {
+
+    public static final int DEFAULT_HISTORY_SIZE = 10_000;
+    public static final int DEFAULT_SUBSCRIBER_BUFFER = 1_000;
+
+    public record Entry(long id, TaskEvent event) {}
+
+    public enum CloseReason {
+        // the subscriber cancelled, e.g. the client disconnected
+        CANCELLED,
+        // the subscriber's queue overflowed
+        TOO_SLOW,
+        // the requested resume point is no longer in the history; the client has to reload the full state
+        HISTORY_LOST,
+        // delivering an event failed
+        FAILED
+    }
+
+    public interface Subscriber {
+        void onEvent(Entry entry) throws IOException;
+
+        // called exactly once, when the subscription ends for any reason
+        void onClose(CloseReason reason);
+    }
+
+    private final Lock lock = new ReentrantLock();
+    private final Entry[] history;
+    private final int subscriberBuffer;
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private long lastId;
+
+    public ChangeFeed() {
+        this(DEFAULT_HISTORY_SIZE, DEFAULT_SUBSCRIBER_BUFFER);
+    }
+
+    public ChangeFeed(int historySize, int subscriberBuffer) {
+        if (historySize <= 0 || subscriberBuffer <= 0) {
+            throw new IllegalArgumentException("History size and subscriber buffer must be positive.");
+        }
+        this.history = new Entry[historySize];
+        this.subscriberBuffer = subscriberBuffer;
+    }
+
+    public long publish(TaskEvent event) {
+        List<Subscription> evicted = null;
+        long id;
+        lock.lock();
+        try {
+            id = ++lastId;
+            Entry entry = new Entry(id, event);
+            history[(int) (id % history.length)] = entry;
+            for (Subscription subscription : subscriptions) {
+                if (!subscription.queue.offer(entry)) {
+                    if (evicted == null) {
+                        evicted = new ArrayList<>();
+                    }
+                    evicted.add(subscription);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        // outside the lock; the drainer is only interrupted and calls onClose itself
+        if (evicted != null) {
+            evicted.forEach(subscription -> subscription.close(CloseReason.TOO_SLOW));
+        }
+        return id;
+    }
+
+    // Delivers every event after afterId, then new events as they are published; 0 means new events only
+    public Subscription subscribe(long afterId, Subscriber subscriber) {
+        Subscription subscription = new Subscription(subscriber);
+        List<Entry> missed = new ArrayList<>();
+        lock.lock();
+        try {
+            long oldest = Math.max(1, lastId - history.length + 1);
+            if (afterId < 0 || afterId > lastId || (afterId > 0 && afterId + 1 < oldest)) {
+                missed = null;
+            } else if (afterId > 0) {
+                for (long id = afterId + 1; id <= lastId; id++) {
+                    missed.add(history[(int) (id % history.length)]);
+                }
+            }
+            if (missed != null) {
+                // registered in the same critical section as the history copy, so nothing is lost or sent twice
+                subscriptions.add(subscription);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (missed == null) {
+            subscription.close(CloseReason.HISTORY_LOST);
+            missed = List.of();
+        }
+        // started even when closed already, to deliver onClose
+        subscription.start(missed);
+        return subscription;
+    }
+
+    public long lastId() {
+        lock.lock();
+        try {
+            return lastId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int subscriberCount() {
+        lock.lock();
+        try {
+            return subscriptions.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public final class Subscription {
+        private final Subscriber subscriber;
+        private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(subscriberBuffer);
+        // set once, by the first close
+        private final AtomicReference<CloseReason> closed = new AtomicReference<>();
+        private volatile Thread drainer;
+
+        private Subscription(Subscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        public void cancel() {
+            close(CloseReason.CANCELLED);
+        }
+
+        private void start(List<Entry> missed) {
+            drainer = Thread.ofVirtual().name("change-feed-subscriber").start(() -> drain(missed));
+            if (closed.get() != null) {
+                drainer.interrupt();
+            }
+        }
+
+        private void drain(List<Entry> missed) {
+            try {
+                for (Entry entry : missed) {
+                    if (closed.get() != null) {
+                        break;
+                    }
+                    subscriber.onEvent(entry);
+                }
+                while (closed.get() == null) {
+                    subscriber.onEvent(queue.take());
+                }
+            } catch (InterruptedException e) {
+                // closed while waiting for the next event
+            } catch (IOException | RuntimeException e) {
+                close(CloseReason.FAILED);
+            }
+            // an interrupt that arrived during onEvent must not fail the I/O onClose may do
+            Thread.interrupted();
+            subscriber.onClose(closed.get());
+        }
+
+        private void close(CloseReason reason) {
+            if (!closed.compareAndSet(null, reason)) {
+                return;
+            }
+            lock.lock();
+            try {
+                subscriptions.remove(this);
+            } finally {
+                lock.unlock();
+            }
+            Thread thread = drainer;
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+        }
+    }
+}
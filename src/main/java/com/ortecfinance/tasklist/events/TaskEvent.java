@@ -0,0 +1,17 @@
+package com.ortecfinance.tasklist.events;
+
+import java.time.LocalDate;
+
+// A change to the store, published by TaskService after it has been applied.
+// Events carry the new values, so a client can keep a local copy up to date without refetching.
+public sealed interface TaskEvent {
+
+    record ProjectAdded(String project) implements TaskEvent {}
+
+    record TaskAdded(String project, long taskId, String description) implements TaskEvent {}
+
+    record DoneChanged(String project, long taskId, boolean done) implements TaskEvent {}
+
+    // deadline is null when it was cleared
+    record DeadlineChanged(String project, long taskId, LocalDate deadline) implements TaskEvent {}
+}
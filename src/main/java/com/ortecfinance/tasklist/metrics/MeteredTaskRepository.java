@@ -0,0 +1,228 @@
+package com.ortecfinance.tasklist.metrics;
+
+import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.repository.TaskQuery;
+import com.ortecfinance.tasklist.repository.TaskRepository;
+import com.ortecfinance.tasklist.repository.TaskSnapshot;
+import com.ortecfinance.tasklist.repository.TaskStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Decorator that times every repository operation ("tasklist.repository", tagged by operation) and
+// counts lookups and updates that found no task ("tasklist.repository.misses"). Meters are created
+// once per operation and cached, so the hot path only pays for a clock read and an atomic update.
+public final class MeteredTaskRepository implements TaskRepository, Closeable {
+
+    private final TaskRepository delegate;
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> misses = new ConcurrentHashMap<>();
+
+    public MeteredTaskRepository(TaskRepository delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public void addProject(String name) {
+        timed("addProject", () -> {
+            delegate.addProject(name);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean hasProject(String name) {
+        return timed("hasProject", () -> delegate.hasProject(name));
+    }
+
+    @Override
+    public Task addTask(String projectName, String description) {
+        return timed("addTask", () -> delegate.addTask(projectName, description));
+    }
+
+    @Override
+    public void restoreTask(String projectName, Task task) {
+        timed("restoreTask", () -> {
+            delegate.restoreTask(projectName, task);
+            return null;
+        });
+    }
+
+    @Override
+    public void restoreTasks(String projectName, List<Task> tasks) {
+        timed("restoreTasks", () -> {
+            delegate.restoreTasks(projectName, tasks);
+            return null;
+        });
+    }
+
+    @Override
+    public Map<String, List<Task>> getAllProjectsWithTasks() {
+        return timed("getAllProjectsWithTasks", delegate::getAllProjectsWithTasks);
+    }
+
+    @Override
+    public TaskSnapshot snapshot() {
+        return timed("snapshot", delegate::snapshot);
+    }
+
+    @Override
+    public long version() {
+        return delegate.version();
+    }
+
+    @Override
+    public <T> T consistentRead(Supplier<T> read) {
+        return delegate.consistentRead(read);
+    }
+
+    @Override
+    public long projectVersion(String projectName) {
+        return delegate.projectVersion(projectName);
+    }
+
+    @Override
+    public List<String> getProjectNames() {
+        return timed("getProjectNames", delegate::getProjectNames);
+    }
+
+    @Override
+    public List<Task> getTasks(String projectName, long afterId, int limit) {
+        return timed("getTasks", () -> delegate.getTasks(projectName, afterId, limit));
+    }
+
+    @Override
+    public Optional<Task> findTaskById(long id) {
+        return counted("findTaskById", timed("findTaskById", () -> delegate.findTaskById(id)));
+    }
+
+    @Override
+    public Optional<String> findProjectByTaskId(long id) {
+        return counted("findProjectByTaskId", timed("findProjectByTaskId", () -> delegate.findProjectByTaskId(id)));
+    }
+
+    @Override
+    public Optional<Task> setTaskDone(long id, boolean done) {
+        return counted("setTaskDone", timed("setTaskDone", () -> delegate.setTaskDone(id, done)));
+    }
+
+    @Override
+    public Optional<Task> setTaskDeadline(long id, LocalDate deadline) {
+        return counted("setTaskDeadline", timed("setTaskDeadline", () -> delegate.setTaskDeadline(id, deadline)));
+    }
+
+    @Override
+    public boolean supportsConditionalUpdates() {
+        return delegate.supportsConditionalUpdates();
+    }
+
+    @Override
+    public Optional<ConditionalUpdate> compareAndSetTaskDone(long id, long expectedVersion, boolean done) {
+        return counted("compareAndSetTaskDone", timed("compareAndSetTaskDone",
+                () -> delegate.compareAndSetTaskDone(id, expectedVersion, done)));
+    }
+
+    @Override
+    public Optional<ConditionalUpdate> compareAndSetTaskDeadline(long id, long expectedVersion, LocalDate deadline) {
+        return counted("compareAndSetTaskDeadline", timed("compareAndSetTaskDeadline",
+                () -> delegate.compareAndSetTaskDeadline(id, expectedVersion, deadline)));
+    }
+
+    @Override
+    public List<Optional<Task>> addTasks(List<NewTask> tasks) {
+        return countedAll("addTasks", timed("addTasks", () -> delegate.addTasks(tasks)));
+    }
+
+    @Override
+    public List<Optional<Task>> setTasksDone(List<DoneChange> changes) {
+        return countedAll("setTasksDone", timed("setTasksDone", () -> delegate.setTasksDone(changes)));
+    }
+
+    @Override
+    public List<Optional<Task>> setTaskDeadlines(List<DeadlineChange> changes) {
+        return countedAll("setTaskDeadlines", timed("setTaskDeadlines", () -> delegate.setTaskDeadlines(changes)));
+    }
+
+    @Override
+    public SortedMap<LocalDate, Map<String, List<Task>>> getTasksByDeadline() {
+        return timed("getTasksByDeadline", delegate::getTasksByDeadline);
+    }
+
+    @Override
+    public Map<String, List<Task>> getTasksWithoutDeadline() {
+        return timed("getTasksWithoutDeadline", delegate::getTasksWithoutDeadline);
+    }
+
+    @Override
+    public Map<String, List<Task>> getTasksDueOn(LocalDate date) {
+        return timed("getTasksDueOn", () -> delegate.getTasksDueOn(date));
+    }
+
+    @Override
+    public SortedMap<LocalDate, Integer> countTasksByDeadline(LocalDate from, LocalDate to) {
+        return timed("countTasksByDeadline", () -> delegate.countTasksByDeadline(from, to));
+    }
+
+    @Override
+    public Map<String, TaskStats> getProjectStats(LocalDate today) {
+        return timed("getProjectStats", () -> delegate.getProjectStats(today));
+    }
+
+    @Override
+    public TaskQuery.Result query(TaskQuery query) {
+        return timed("query", () -> delegate.query(query));
+    }
+
+    // Passes close on, so a journaling delegate is still flushed and closed on shutdown
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private <T> T timed(String operation, Supplier<T> body) {
+        Timer timer = timers.computeIfAbsent(operation, name -> Timer.builder("tasklist.repository")
+                .description("Time spent in repository operations")
+                .tag("operation", name)
+                .register(registry));
+        long start = System.nanoTime();
+        try {
+            return body.get();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private <T> Optional<T> counted(String operation, Optional<T> result) {
+        if (result.isEmpty()) {
+            miss(operation).increment();
+        }
+        return result;
+    }
+
+    private List<Optional<Task>> countedAll(String operation, List<Optional<Task>> results) {
+        long missing = results.stream().filter(Optional::isEmpty).count();
+        if (missing > 0) {
+            miss(operation).increment(missing);
+        }
+        return results;
+    }
+
+    private Counter miss(String operation) {
+        return misses.computeIfAbsent(operation, name -> Counter.builder("tasklist.repository.misses")
+                .description("Repository lookups and updates that found no task or project")
+                .tag("operation", name)
+                .register(registry));
+    }
+}
@@ -0,0 +1,77 @@
+package com.ortecfinance.tasklist.metrics;
+
+import com.ortecfinance.tasklist.repository.TaskRepository;
+import com.ortecfinance.tasklist.repository.TaskStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+// Project and task counts as gauges, summed from the repository's per-project counters. The sums are
+// kept until the repository version (or the day, for overdue) changes, so a scrape of all four gauges
+// costs one pass over the projects at most and nothing at all while the list is unchanged.
+public final class TaskGauges implements MeterBinder {
+
+    record Counts(long version, LocalDate day, long projects, long tasks, long done, long overdue) {}
+
+    private final TaskRepository repository;
+    private final Clock clock;
+    private volatile Counts counts;
+
+    public TaskGauges(TaskRepository repository) {
+        this(repository, Clock.systemDefaultZone());
+    }
+
+    public TaskGauges(TaskRepository repository, Clock clock) {
+        this.repository = repository;
+        this.clock = clock;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        gauge(registry, "tasklist.projects", "Number of projects", Counts::projects);
+        gauge(registry, "tasklist.tasks", "Number of tasks", Counts::tasks);
+        gauge(registry, "tasklist.tasks.done", "Number of tasks marked done", Counts::done);
+        gauge(registry, "tasklist.tasks.overdue", "Open tasks with a deadline before today", Counts::overdue);
+    }
+
+    Counts counts() {
+        long version = repository.version();
+        LocalDate today = LocalDate.now(clock);
+        Counts current = counts;
+        if (current != null && current.version() == version && current.day().equals(today)) {
+            return current;
+        }
+        synchronized (this) {
+            current = counts;
+            if (current == null || current.version() != version || !current.day().equals(today)) {
+                current = count(version, today);
+                counts = current;
+            }
+            return current;
+        }
+    }
+
+    private Counts count(long version, LocalDate today) {
+        long tasks = 0;
+        long done = 0;
+        long overdue = 0;
+        Map<String, TaskStats> projects = repository.getProjectStats(today);
+        for (TaskStats stats : projects.values()) {
+            tasks += stats.open() + stats.done();
+            done += stats.done();
+            overdue += stats.overdue();
+        }
+        return new Counts(version, today, projects.size(), tasks, done, overdue);
+    }
+
+    private void gauge(MeterRegistry registry, String name, String description, ToLongFunction<Counts> value) {
+        Gauge.builder(name, this, gauges -> value.applyAsLong(gauges.counts()))
+                .description(description)
+                .register(registry);
+    }
+}
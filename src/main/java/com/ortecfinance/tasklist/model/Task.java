@@ -5,14 +5,29 @@ import java.time.LocalDate;
 public final class Task {
     private final long id;
     private final String description;
-    private boolean done;
-    private LocalDate deadline;
+    // volatile: tasks are shared between request threads in REST mode
+    private volatile boolean done;
+    private volatile LocalDate deadline;
+    // starts at 1 and moves on with every change; a task has one writer at a time (its repository's lock,
+    // or the single console thread), so the increments in the setters don't race
+    private volatile long version;
 
     public Task(long id, String description, boolean done) {
+        this(id, description, done, null, 1);
+    }
+
+    // Full state, for restoring a task as it was stored; unlike the setters this keeps the version
+    public Task(long id, String description, boolean done, LocalDate deadline, long version) {
         this.id = id;
         this.description = description;
         this.done = done;
-        this.deadline = null;
+        this.deadline = deadline;
+        this.version = version;
+    }
+
+    // Detached copy, used where a task must not change after it has been handed out
+    public Task copy() {
+        return new Task(id, description, done, deadline, version);
     }
 
     public long getId() {
@@ -29,9 +44,18 @@ public final class Task {
 
     public void setDone(boolean done) {
         this.done = done;
+        version++;
     }
 
     public LocalDate getDeadline() {return deadline; }
 
-    public void setDeadline(LocalDate deadline) { this.deadline = deadline; }
+    public void setDeadline(LocalDate deadline) {
+        this.deadline = deadline;
+        version++;
+    }
+
+    // Serves as the task's entity tag for conditional updates
+    public long getVersion() {
+        return version;
+    }
 }
@@ -0,0 +1,398 @@
+package com.ortecfinance.tasklist.persistence;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Append-only mutation log with group commit.
+//
+// append() only copies the encoded record into a pending buffer and returns its sequence number.
+// A single flusher thread writes everything pending and forces it to disk, so concurrent writers
+// waiting in awaitDurable() share one fsync. A non-zero group commit window makes the flusher wait
+// that long before each flush so more writers can join the batch.
+//
+// Frame layout: int length, int crc32, then length bytes of (long sequence, encoded mutation).
+// A torn or corrupt tail left by a crash is cut off when the journal is opened.
+//
+// The journal is fail-stop: once a flush fails, every later append throws, so nothing more is queued
+// behind a record that will never reach the disk.
+//
+// rollOver() closes the current file once everything appended so far is on disk and renames it to
+// "<name>.<last sequence>"; writing continues in a fresh file. Rolled segments are replayed before the
+// current file on open, until a checkpoint makes them redundant and they are deleted.
+public final class Journal implements Closeable {
+
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    private final Path path;
+    private FileChannel channel;
+    private final long groupCommitNanos;
+    private final Thread flusher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pendingAvailable = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long appendedSequence;
+    private long durableSequence;
+    private long flushCount;
+    private int rolloverOffset = -1;
+    private long rolloverSequence;
+    private long rolledSequence;
+    private IOException failure;
+    private boolean closed;
+
+    Journal(Path path, FileChannel channel, long lastSequence, Duration groupCommitWindow) {
+        this.path = path;
+        this.channel = channel;
+        this.groupCommitNanos = groupCommitWindow.toNanos();
+        this.appendedSequence = lastSequence;
+        this.durableSequence = lastSequence;
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    // Replays every intact record after afterSequence, rolled segments first, then opens the journal for appending
+    public static Journal open(Path path, Duration groupCommitWindow, long afterSequence,
+                               BiConsumer<Long, Mutation> replay) throws IOException {
+        long lastSequence = afterSequence;
+        for (Path segment : segments(path)) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                lastSequence = Math.max(lastSequence, replay(channel, afterSequence, replay).lastSequence());
+            }
+            if (segmentSequence(segment) <= afterSequence) {
+                Files.delete(segment);
+            }
+        }
+
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Replayed replayed = replay(channel, afterSequence, replay);
+        channel.truncate(replayed.validLength());
+        channel.position(replayed.validLength());
+        return new Journal(path, channel, Math.max(lastSequence, replayed.lastSequence()), groupCommitWindow);
+    }
+
+    public static Journal open(Path path, Duration groupCommitWindow, BiConsumer<Long, Mutation> replay)
+            throws IOException {
+        return open(path, groupCommitWindow, 0, replay);
+    }
+
+    private static Replayed replay(FileChannel channel, long afterSequence, BiConsumer<Long, Mutation> replay)
+            throws IOException {
+        long lastSequence = 0;
+        long validLength = 0;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        try {
+            while (true) {
+                int length = in.readInt();
+                int crc = in.readInt();
+                if (length < Long.BYTES + 1 || length > channel.size()) {
+                    break;
+                }
+                byte[] body = new byte[length];
+                in.readFully(body);
+                if (checksum(body) != crc) {
+                    break;
+                }
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(body));
+                lastSequence = record.readLong();
+                if (lastSequence > afterSequence) {
+                    replay.accept(lastSequence, MutationCodec.decode(record));
+                }
+                validLength += HEADER_BYTES + length;
+            }
+        } catch (EOFException endOfJournal) {
+            // clean end of file or a frame cut short by a crash
+        }
+        return new Replayed(lastSequence, validLength);
+    }
+
+    private record Replayed(long lastSequence, long validLength) {}
+
+    // Queues the mutation and returns its sequence number; it is durable once awaitDurable returns
+    public long append(Mutation mutation) {
+        byte[] encoded = encode(mutation);
+        lock.lock();
+        try {
+            requireWritable();
+            long sequence = ++appendedSequence;
+            pending.writeBytes(frame(sequence, encoded));
+            pendingAvailable.signal();
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Throws if an append would be rejected; lets callers refuse a write before applying it anywhere else
+    public void checkWritable() {
+        lock.lock();
+        try {
+            requireWritable();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void requireWritable() {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed.");
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Journal write failed.", failure);
+        }
+    }
+
+    public void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence && failure == null) {
+                flushed.awaitUninterruptibly();
+            }
+            if (durableSequence < sequence) {
+                throw new UncheckedIOException("Journal write failed.", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Starts a new file after everything appended so far and returns the last sequence of the old one.
+    // Callers must stop appends while calling this if the sequence has to match their own state.
+    public long rollOver() {
+        lock.lock();
+        try {
+            if (rolloverOffset >= 0) {
+                throw new IllegalStateException("A roll-over is already pending.");
+            }
+            rolloverOffset = pending.size();
+            rolloverSequence = appendedSequence;
+            pendingAvailable.signal();
+            return rolloverSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void awaitRollOver(long sequence) {
+        lock.lock();
+        try {
+            while (rolledSequence < sequence && failure == null) {
+                flushed.awaitUninterruptibly();
+            }
+            if (rolledSequence < sequence) {
+                throw new UncheckedIOException("Journal roll-over failed.", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Drops rolled segments whose records are all covered by a checkpoint
+    public void deleteSegmentsUpTo(long sequence) throws IOException {
+        for (Path segment : segments(path)) {
+            if (segmentSequence(segment) <= sequence) {
+                Files.delete(segment);
+            }
+        }
+    }
+
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Number of fsyncs so far; lower than the number of appends when writers share flushes
+    public long flushCount() {
+        lock.lock();
+        try {
+            return flushCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            pendingAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void flushLoop() {
+        while (true) {
+            lock.lock();
+            try {
+                while (pending.size() == 0 && rolloverOffset < 0 && !closed) {
+                    pendingAvailable.awaitUninterruptibly();
+                }
+                if (pending.size() == 0 && rolloverOffset < 0) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (groupCommitNanos > 0 && !isClosing()) {
+                sleepNanos(groupCommitNanos);
+            }
+
+            byte[] batch;
+            long batchSequence;
+            int split;
+            long splitSequence;
+            lock.lock();
+            try {
+                batch = pending.toByteArray();
+                batchSequence = appendedSequence;
+                split = rolloverOffset;
+                splitSequence = rolloverSequence;
+                rolloverOffset = -1;
+                pending = new ByteArrayOutputStream();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                if (split >= 0) {
+                    write(batch, 0, split);
+                    channel.close();
+                    Files.move(path, segmentPath(path, splitSequence));
+                    channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                    write(batch, split, batch.length - split);
+                } else {
+                    write(batch, 0, batch.length);
+                }
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                durableSequence = batchSequence;
+                if (split >= 0) {
+                    rolledSequence = splitSequence;
+                }
+                flushCount++;
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    private static Path segmentPath(Path path, long lastSequence) {
+        return path.resolveSibling(path.getFileName() + "." + lastSequence);
+    }
+
+    private static long segmentSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(name.lastIndexOf('.') + 1));
+    }
+
+    // Rolled segments of the journal at path, oldest first
+    private static List<Path> segments(Path path) throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        String prefix = path.getFileName() + ".";
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(prefix) && name.substring(prefix.length()).matches("\\d+");
+                    })
+                    .sorted(Comparator.comparingLong(Journal::segmentSequence))
+                    .toList();
+        }
+    }
+
+    private boolean isClosing() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void sleepNanos(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] encode(Mutation mutation) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            MutationCodec.encode(mutation, new DataOutputStream(bytes));
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            // in-memory streams don't fail
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] frame(long sequence, byte[] encoded) {
+        int length = Long.BYTES + encoded.length;
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + length);
+        frame.putInt(length);
+        frame.putInt(0);
+        frame.putLong(sequence);
+        frame.put(encoded);
+        CRC32 crc = new CRC32();
+        crc.update(frame.array(), HEADER_BYTES, length);
+        frame.putInt(Integer.BYTES, (int) crc.getValue());
+        return frame.array();
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,389 @@
+package com.ortecfinance.tasklist.persistence;
+
+import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.repository.TaskQuery;
+import com.ortecfinance.tasklist.repository.TaskRepository;
+import com.ortecfinance.tasklist.repository.TaskSnapshot;
+import com.ortecfinance.tasklist.repository.TaskStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+// Durable repository: reads and writes are served by the in-memory delegate, and every
+// mutation is also appended to a Journal. A write returns once its journal record is on disk;
+// concurrent writers share fsyncs through the journal's group commit.
+//
+// A mutation is applied and appended under a lock striped by project name, so records of one
+// project are journaled in the order they were applied while other projects carry on in parallel.
+// The journal's health is checked under the same lock before the delegate is touched, so once a flush
+// has failed no further write reaches memory; only writes already in flight at that moment do.
+//
+// With a snapshot path, checkpoint() writes the delegate's current TaskSnapshot to a SnapshotFile and
+// drops the journal segments it covers; startup then loads the snapshot and replays only the journal tail.
+public final class JournalingTaskRepository implements TaskRepository, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalingTaskRepository.class);
+    private static final int STRIPES = 64;
+
+    private final TaskRepository delegate;
+    private final Journal journal;
+    private final Path snapshotPath;
+    private final Lock[] stripes = new Lock[STRIPES];
+    private final Lock checkpointLock = new ReentrantLock();
+    private final ScheduledExecutorService checkpoints;
+
+    // snapshotPath and checkpointInterval are optional; without a snapshot the whole journal is replayed
+    public record Options(Path journalPath, Path snapshotPath, Duration groupCommitWindow, Duration checkpointInterval) {}
+
+    JournalingTaskRepository(TaskRepository delegate, Journal journal, Options options) {
+        this.delegate = delegate;
+        this.journal = journal;
+        this.snapshotPath = options.snapshotPath();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        Duration interval = options.checkpointInterval();
+        if (snapshotPath != null && interval != null && !interval.isZero() && !interval.isNegative()) {
+            checkpoints = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-checkpoint");
+                thread.setDaemon(true);
+                return thread;
+            });
+            checkpoints.scheduleWithFixedDelay(this::scheduledCheckpoint,
+                    interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            checkpoints = null;
+        }
+    }
+
+    // Loads the latest snapshot and replays the journal after it into the delegate, then journals all further writes
+    public static JournalingTaskRepository open(TaskRepository delegate, Options options) throws IOException {
+        long snapshotSequence = 0;
+        if (options.snapshotPath() != null && Files.exists(options.snapshotPath())) {
+            snapshotSequence = SnapshotFile.load(options.snapshotPath(), delegate);
+        }
+        Journal journal = Journal.open(options.journalPath(), options.groupCommitWindow(), snapshotSequence,
+                (sequence, mutation) -> mutation.applyTo(delegate));
+        return new JournalingTaskRepository(delegate, journal, options);
+    }
+
+    public static JournalingTaskRepository open(Path path, TaskRepository delegate, Duration groupCommitWindow)
+            throws IOException {
+        return open(delegate, new Options(path, null, groupCommitWindow, null));
+    }
+
+    // Writes a snapshot without holding up writers for longer than it takes to grab the delegate's
+    // current version; the file itself is written while writes carry on.
+    public void checkpoint() throws IOException {
+        if (snapshotPath == null) {
+            throw new IllegalStateException("No snapshot path configured.");
+        }
+        checkpointLock.lock();
+        try {
+            TaskSnapshot snapshot;
+            long sequence;
+            // with every stripe held no write is half-way between the delegate and the journal
+            for (Lock stripe : stripes) {
+                stripe.lock();
+            }
+            try {
+                snapshot = delegate.snapshot();
+                sequence = journal.rollOver();
+            } finally {
+                for (Lock stripe : stripes) {
+                    stripe.unlock();
+                }
+            }
+            journal.awaitRollOver(sequence);
+            SnapshotFile.write(snapshotPath, snapshot, sequence);
+            journal.deleteSegmentsUpTo(sequence);
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    private void scheduledCheckpoint() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Checkpoint to {} failed", snapshotPath, e);
+        }
+    }
+
+    @Override
+    public void addProject(String name) {
+        write(name, () -> {
+            if (delegate.hasProject(name)) {
+                return new Written<>(null, 0);
+            }
+            delegate.addProject(name);
+            return new Written<>(null, journal.append(new Mutation.AddProject(name)));
+        });
+    }
+
+    @Override
+    public boolean hasProject(String name) {
+        return delegate.hasProject(name);
+    }
+
+    @Override
+    public Task addTask(String projectName, String description) {
+        return write(projectName, () -> {
+            Task task = delegate.addTask(projectName, description);
+            return new Written<>(task, journal.append(new Mutation.AddTask(projectName, task.getId(), description)));
+        });
+    }
+
+    @Override
+    public void restoreTask(String projectName, Task task) {
+        write(projectName, () -> {
+            delegate.restoreTask(projectName, task);
+            return new Written<>(null, journal.append(new Mutation.RestoreTask(projectName, task.getId(),
+                    task.getDescription(), task.isDone(), task.getDeadline(), task.getVersion())));
+        });
+    }
+
+    @Override
+    public Optional<Task> setTaskDone(long id, boolean done) {
+        return update(id, () -> delegate.setTaskDone(id, done), Optional::isPresent, new Mutation.SetDone(id, done));
+    }
+
+    @Override
+    public Optional<Task> setTaskDeadline(long id, LocalDate deadline) {
+        return update(id, () -> delegate.setTaskDeadline(id, deadline), Optional::isPresent,
+                new Mutation.SetDeadline(id, deadline));
+    }
+
+    @Override
+    public boolean supportsConditionalUpdates() {
+        return delegate.supportsConditionalUpdates();
+    }
+
+    @Override
+    // Journaled as the plain change; replayed on the state it was checked against, it gives the same version
+    public Optional<ConditionalUpdate> compareAndSetTaskDone(long id, long expectedVersion, boolean done) {
+        return update(id, () -> delegate.compareAndSetTaskDone(id, expectedVersion, done),
+                JournalingTaskRepository::applied, new Mutation.SetDone(id, done));
+    }
+
+    @Override
+    public Optional<ConditionalUpdate> compareAndSetTaskDeadline(long id, long expectedVersion, LocalDate deadline) {
+        return update(id, () -> delegate.compareAndSetTaskDeadline(id, expectedVersion, deadline),
+                JournalingTaskRepository::applied, new Mutation.SetDeadline(id, deadline));
+    }
+
+    private static boolean applied(Optional<ConditionalUpdate> update) {
+        return update.map(ConditionalUpdate::applied).orElse(false);
+    }
+
+    @Override
+    // The batch is applied by the delegate in one call and journaled as one record with one fsync
+    public List<Optional<Task>> addTasks(List<NewTask> tasks) {
+        Set<String> projectNames = new HashSet<>();
+        tasks.forEach(task -> projectNames.add(task.projectName()));
+        return writeAll(projectNames, () -> {
+            List<Optional<Task>> results = delegate.addTasks(tasks);
+            List<Mutation> added = new ArrayList<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                NewTask task = tasks.get(i);
+                results.get(i).ifPresent(created ->
+                        added.add(new Mutation.AddTask(task.projectName(), created.getId(), task.description())));
+            }
+            return new Written<>(results, appendBatch(added));
+        });
+    }
+
+    @Override
+    public List<Optional<Task>> setTasksDone(List<DoneChange> changes) {
+        return updateAll(changes, DoneChange::taskId, delegate::setTasksDone,
+                change -> new Mutation.SetDone(change.taskId(), change.done()));
+    }
+
+    @Override
+    public List<Optional<Task>> setTaskDeadlines(List<DeadlineChange> changes) {
+        return updateAll(changes, DeadlineChange::taskId, delegate::setTaskDeadlines,
+                change -> new Mutation.SetDeadline(change.taskId(), change.deadline()));
+    }
+
+    @Override
+    public Map<String, List<Task>> getAllProjectsWithTasks() {
+        return delegate.getAllProjectsWithTasks();
+    }
+
+    @Override
+    public TaskSnapshot snapshot() {
+        return delegate.snapshot();
+    }
+
+    @Override
+    public long version() {
+        return delegate.version();
+    }
+
+    @Override
+    public <T> T consistentRead(Supplier<T> read) {
+        return delegate.consistentRead(read);
+    }
+
+    @Override
+    public long projectVersion(String projectName) {
+        return delegate.projectVersion(projectName);
+    }
+
+    @Override
+    public List<String> getProjectNames() {
+        return delegate.getProjectNames();
+    }
+
+    @Override
+    public List<Task> getTasks(String projectName, long afterId, int limit) {
+        return delegate.getTasks(projectName, afterId, limit);
+    }
+
+    @Override
+    public Optional<Task> findTaskById(long id) {
+        return delegate.findTaskById(id);
+    }
+
+    @Override
+    public Optional<String> findProjectByTaskId(long id) {
+        return delegate.findProjectByTaskId(id);
+    }
+
+    @Override
+    public SortedMap<LocalDate, Map<String, List<Task>>> getTasksByDeadline() {
+        return delegate.getTasksByDeadline();
+    }
+
+    @Override
+    public Map<String, List<Task>> getTasksWithoutDeadline() {
+        return delegate.getTasksWithoutDeadline();
+    }
+
+    @Override
+    public Map<String, List<Task>> getTasksDueOn(LocalDate date) {
+        return delegate.getTasksDueOn(date);
+    }
+
+    @Override
+    public SortedMap<LocalDate, Integer> countTasksByDeadline(LocalDate from, LocalDate to) {
+        return delegate.countTasksByDeadline(from, to);
+    }
+
+    @Override
+    public Map<String, TaskStats> getProjectStats(LocalDate today) {
+        return delegate.getProjectStats(today);
+    }
+
+    @Override
+    public TaskQuery.Result query(TaskQuery query) {
+        return delegate.query(query);
+    }
+
+    Journal journal() {
+        return journal;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (checkpoints != null) {
+            checkpoints.shutdown();
+            try {
+                checkpoints.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        journal.close();
+    }
+
+    // Only a change the delegate applied is journaled
+    private <T> Optional<T> update(long id, Supplier<Optional<T>> change, Predicate<Optional<T>> applied,
+                                   Mutation mutation) {
+        Optional<String> projectName = delegate.findProjectByTaskId(id);
+        if (projectName.isEmpty()) {
+            return Optional.empty();
+        }
+        return write(projectName.get(), () -> {
+            Optional<T> updated = change.get();
+            return new Written<>(updated, applied.test(updated) ? journal.append(mutation) : 0);
+        });
+    }
+
+    private <C> List<Optional<Task>> updateAll(List<C> changes, ToLongFunction<C> taskId,
+                                               Function<List<C>, List<Optional<Task>>> apply,
+                                               Function<C, Mutation> mutation) {
+        Set<String> projectNames = new HashSet<>();
+        for (C change : changes) {
+            delegate.findProjectByTaskId(taskId.applyAsLong(change)).ifPresent(projectNames::add);
+        }
+        return writeAll(projectNames, () -> {
+            List<Optional<Task>> results = apply.apply(changes);
+            List<Mutation> applied = new ArrayList<>();
+            for (int i = 0; i < changes.size(); i++) {
+                if (results.get(i).isPresent()) {
+                    applied.add(mutation.apply(changes.get(i)));
+                }
+            }
+            return new Written<>(results, appendBatch(applied));
+        });
+    }
+
+    private long appendBatch(List<Mutation> mutations) {
+        return mutations.isEmpty() ? 0 : journal.append(new Mutation.Batch(mutations));
+    }
+
+    // Like write, but holds the stripes of every project in the batch; stripes are taken in index
+    // order, the same order checkpoint() uses, so batches can't deadlock with each other
+    private <T> T writeAll(Set<String> projectNames, Supplier<Written<T>> applyAndAppend) {
+        SortedSet<Integer> held = new TreeSet<>();
+        projectNames.forEach(name -> held.add(stripe(name)));
+        Written<T> written;
+        held.forEach(index -> stripes[index].lock());
+        try {
+            journal.checkWritable();
+            written = applyAndAppend.get();
+        } finally {
+            held.forEach(index -> stripes[index].unlock());
+        }
+        journal.awaitDurable(written.sequence());
+        return written.value();
+    }
+
+    private static int stripe(String projectName) {
+        return Math.floorMod(projectName.hashCode(), STRIPES);
+    }
+
+    // Applies and journals a mutation under the project's stripe, then waits for it to be durable
+    private <T> T write(String projectName, Supplier<Written<T>> applyAndAppend) {
+        Lock stripe = stripes[stripe(projectName)];
+        Written<T> written;
+        stripe.lock();
+        try {
+            journal.checkWritable();
+            written = applyAndAppend.get();
+        } finally {
+            stripe.unlock();
+        }
+        journal.awaitDurable(written.sequence());
+        return written.value();
+    }
+
+    private record Written<T>(T value, long sequence) {}
+}
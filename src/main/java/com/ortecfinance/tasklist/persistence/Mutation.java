@@ -0,0 +1,39 @@
+package com.ortecfinance.tasklist.persistence;
+
+import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.repository.TaskRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// One journaled change to a repository. Replaying the same mutations in order rebuilds the same state.
+public sealed interface Mutation {
+
+    record AddProject(String name) implements Mutation {}
+
+    // Carries the assigned ID, so replay doesn't depend on the order IDs were handed out in
+    record AddTask(String projectName, long taskId, String description) implements Mutation {}
+
+    // A task restored with its full state, version included, so replay rebuilds it exactly
+    record RestoreTask(String projectName, long taskId, String description, boolean done, LocalDate deadline,
+                       long version) implements Mutation {}
+
+    record SetDone(long taskId, boolean done) implements Mutation {}
+
+    record SetDeadline(long taskId, LocalDate deadline) implements Mutation {}
+
+    // A bulk write journaled as one record, so it becomes durable (or is lost to a torn tail) as a whole
+    record Batch(List<Mutation> mutations) implements Mutation {}
+
+    default void applyTo(TaskRepository repository) {
+        switch (this) {
+            case AddProject m -> repository.addProject(m.name());
+            case AddTask m -> repository.restoreTask(m.projectName(), new Task(m.taskId(), m.description(), false));
+            case RestoreTask m -> repository.restoreTask(m.projectName(),
+                    new Task(m.taskId(), m.description(), m.done(), m.deadline(), m.version()));
+            case SetDone m -> repository.setTaskDone(m.taskId(), m.done());
+            case SetDeadline m -> repository.setTaskDeadline(m.taskId(), m.deadline());
+            case Batch m -> m.mutations().forEach(mutation -> mutation.applyTo(repository));
+        }
+    }
+}
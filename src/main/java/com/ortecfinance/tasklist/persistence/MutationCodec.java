@@ -0,0 +1,107 @@
+package com.ortecfinance.tasklist.persistence;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Binary encoding of mutations: a type byte followed by the fields.
+// Deadlines are stored as epoch days, with NO_DEADLINE for "none".
+final class MutationCodec {
+
+    private static final byte ADD_PROJECT = 1;
+    private static final byte ADD_TASK = 2;
+    private static final byte SET_DONE = 3;
+    private static final byte SET_DEADLINE = 4;
+    private static final byte BATCH = 5;
+    private static final byte RESTORE_TASK = 6;
+
+    static final long NO_DEADLINE = Long.MIN_VALUE;
+
+    private MutationCodec() {
+    }
+
+    static void encode(Mutation mutation, DataOutput out) throws IOException {
+        switch (mutation) {
+            case Mutation.AddProject m -> {
+                out.writeByte(ADD_PROJECT);
+                writeString(out, m.name());
+            }
+            case Mutation.AddTask m -> {
+                out.writeByte(ADD_TASK);
+                writeString(out, m.projectName());
+                out.writeLong(m.taskId());
+                writeString(out, m.description());
+            }
+            case Mutation.RestoreTask m -> {
+                out.writeByte(RESTORE_TASK);
+                writeString(out, m.projectName());
+                out.writeLong(m.taskId());
+                writeString(out, m.description());
+                out.writeBoolean(m.done());
+                writeDate(out, m.deadline());
+                out.writeLong(m.version());
+            }
+            case Mutation.SetDone m -> {
+                out.writeByte(SET_DONE);
+                out.writeLong(m.taskId());
+                out.writeBoolean(m.done());
+            }
+            case Mutation.SetDeadline m -> {
+                out.writeByte(SET_DEADLINE);
+                out.writeLong(m.taskId());
+                writeDate(out, m.deadline());
+            }
+            case Mutation.Batch m -> {
+                out.writeByte(BATCH);
+                out.writeInt(m.mutations().size());
+                for (Mutation nested : m.mutations()) {
+                    encode(nested, out);
+                }
+            }
+        }
+    }
+
+    static Mutation decode(DataInput in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case ADD_PROJECT -> new Mutation.AddProject(readString(in));
+            case ADD_TASK -> new Mutation.AddTask(readString(in), in.readLong(), readString(in));
+            case RESTORE_TASK -> new Mutation.RestoreTask(readString(in), in.readLong(), readString(in),
+                    in.readBoolean(), readDate(in), in.readLong());
+            case SET_DONE -> new Mutation.SetDone(in.readLong(), in.readBoolean());
+            case SET_DEADLINE -> new Mutation.SetDeadline(in.readLong(), readDate(in));
+            case BATCH -> {
+                int count = in.readInt();
+                List<Mutation> mutations = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    mutations.add(decode(in));
+                }
+                yield new Mutation.Batch(mutations);
+            }
+            default -> throw new IOException("Unknown mutation type: " + type);
+        };
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? NO_DEADLINE : date.toEpochDay());
+    }
+
+    static LocalDate readDate(DataInput in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay == NO_DEADLINE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+}
@@ -0,0 +1,123 @@
+package com.ortecfinance.tasklist.persistence;
+
+import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.repository.TaskRepository;
+import com.ortecfinance.tasklist.repository.TaskSnapshot;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// Compact binary checkpoint of a repository, tagged with the last journal sequence it contains.
+//
+// Layout (big-endian): int magic, int format, long journal sequence, int project count, then per project
+// its name and task count followed by each task as long id, long deadline epoch day, byte done, the
+// description and long version. Strings are an int byte length plus UTF-8. A trailing int holds the CRC32 of
+// everything before it. Format 1 files, written before tasks had versions, load with every task at version 1.
+// Loading maps the file into memory instead of streaming it through a reader.
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x544C534E; // "TLSN"
+    private static final int FORMAT = 2;
+
+    private SnapshotFile() {
+    }
+
+    // Writes to a temporary file first, so a crash mid-write leaves the previous snapshot intact
+    public static void write(Path path, TaskSnapshot snapshot, long journalSequence) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc),
+                    1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(journalSequence);
+            out.writeInt(snapshot.projects().size());
+            for (Map.Entry<String, List<Task>> project : snapshot.projects().entrySet()) {
+                MutationCodec.writeString(out, project.getKey());
+                out.writeInt(project.getValue().size());
+                for (Task task : project.getValue()) {
+                    out.writeLong(task.getId());
+                    MutationCodec.writeDate(out, task.getDeadline());
+                    out.writeBoolean(task.isDone());
+                    MutationCodec.writeString(out, task.getDescription());
+                    out.writeLong(task.getVersion());
+                }
+            }
+            out.flush();
+            // the checksum covers everything above and is written outside the checked stream
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, (int) crc.getValue()));
+            channel.force(false);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Restores the snapshot into an empty repository and returns its journal sequence
+    public static long load(Path path, TaskRepository repository) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            verifyChecksum(buffer, path);
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a task snapshot: " + path);
+            }
+            int format = buffer.getInt();
+            if (format != 1 && format != FORMAT) {
+                throw new IOException("Unsupported task snapshot format " + format + ": " + path);
+            }
+            long journalSequence = buffer.getLong();
+            int projectCount = buffer.getInt();
+            for (int p = 0; p < projectCount; p++) {
+                String projectName = readString(buffer);
+                int taskCount = buffer.getInt();
+                List<Task> tasks = new ArrayList<>(taskCount);
+                for (int t = 0; t < taskCount; t++) {
+                    long id = buffer.getLong();
+                    long epochDay = buffer.getLong();
+                    boolean done = buffer.get() != 0;
+                    String description = readString(buffer);
+                    long version = format == 1 ? 1 : buffer.getLong();
+                    LocalDate deadline = epochDay == MutationCodec.NO_DEADLINE ? null : LocalDate.ofEpochDay(epochDay);
+                    tasks.add(new Task(id, description, done, deadline, version));
+                }
+                repository.addProject(projectName);
+                repository.restoreTasks(projectName, tasks);
+            }
+            return journalSequence;
+        }
+    }
+
+    private static void verifyChecksum(MappedByteBuffer buffer, Path path) throws IOException {
+        int length = buffer.limit() - Integer.BYTES;
+        if (length < 0) {
+            throw new IOException("Truncated task snapshot: " + path);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, length));
+        if ((int) crc.getValue() != buffer.getInt(length)) {
+            throw new IOException("Corrupt task snapshot: " + path);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,41 @@
+package com.ortecfinance.tasklist.replication;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+// Primary: every response under /projects carries the feed position as X-Replication-Token. For a write
+// the position is read after the write was applied, so a client that sends the token along with its next
+// read to a follower sees its own write. Write responses are buffered so the header can still be added.
+public final class PrimaryTokenFilter extends OncePerRequestFilter {
+
+    private final ReplicationServer server;
+
+    public PrimaryTokenFilter(ReplicationServer server) {
+        this.server = server;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/projects");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (ReplicaReadFilter.isRead(request)) {
+            response.setHeader(ReplicationToken.HEADER, server.position().toString());
+            chain.doFilter(request, response);
+            return;
+        }
+        ContentCachingResponseWrapper buffered = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, buffered);
+        buffered.setHeader(ReplicationToken.HEADER, server.position().toString());
+        buffered.copyBodyToResponse();
+    }
+}
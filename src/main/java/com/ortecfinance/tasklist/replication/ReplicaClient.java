@@ -0,0 +1,257 @@
+package com.ortecfinance.tasklist.replication;
+
+import com.ortecfinance.tasklist.events.TaskEvent;
+import com.ortecfinance.tasklist.service.TaskService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Follower side of replication: keeps a connection to the primary and applies what it streams through
+// TaskService.applyReplicated, so the follower's search index and change feed stay current as well.
+// Events are applied one at a time on the client's own thread, in the primary's feed order.
+//
+// After a dropped connection it reconnects and resumes after the last applied event. A primary that sends
+// nothing, not even heartbeats, for MISSED_HEARTBEATS intervals counts as dropped too, so a hung primary or a
+// half-open connection can't leave the follower waiting forever. A snapshot from the primary replaces the
+// local state as a whole. Readers can wait for a ReplicationToken to be applied.
+public final class ReplicaClient implements Closeable, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaClient.class);
+    private static final int CONNECT_TIMEOUT_MILLIS = 1_000;
+    private static final int MISSED_HEARTBEATS = 5;
+
+    private final TaskService service;
+    private final ReplicaTaskRepository repository;
+    private final InetSocketAddress primary;
+    private final int readTimeoutMillis;
+    private final Duration retryDelay;
+    private final Thread thread;
+    private volatile Socket socket;
+    private volatile boolean closed;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition advanced = lock.newCondition();
+    // all guarded by lock; times are System.nanoTime()
+    private String epoch = "";
+    private long appliedId;
+    private long primaryId;
+    private long behindSince = -1;
+    private long lastContact = System.nanoTime();
+    private boolean connected;
+
+    // heartbeatInterval is the primary's; it sets how long a silent connection is trusted
+    public ReplicaClient(TaskService service, ReplicaTaskRepository repository, InetSocketAddress primary,
+                         Duration heartbeatInterval, Duration retryDelay) {
+        if (heartbeatInterval.isNegative() || heartbeatInterval.isZero()) {
+            throw new IllegalArgumentException("Heartbeat interval must be positive: " + heartbeatInterval);
+        }
+        this.service = service;
+        this.repository = repository;
+        this.primary = primary;
+        this.readTimeoutMillis = Math.toIntExact(heartbeatInterval.multipliedBy(MISSED_HEARTBEATS).toMillis());
+        this.retryDelay = retryDelay;
+        this.thread = Thread.ofPlatform().daemon().name("replica-client").start(this::run);
+    }
+
+    // Waits until the follower has applied everything up to the token. A token from an earlier primary run
+    // is covered by any state of a later one; false if the timeout passes first.
+    public boolean awaitApplied(ReplicationToken token, Duration timeout) {
+        long remaining = timeout.toNanos();
+        lock.lock();
+        try {
+            while (!covers(token)) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = advanced.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The last applied position, or null before the first snapshot arrived
+    public ReplicationToken position() {
+        lock.lock();
+        try {
+            return epoch.isEmpty() ? null : new ReplicationToken(epoch, appliedId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ReplicationStatus status() {
+        lock.lock();
+        try {
+            return new ReplicationStatus("follower", epoch, appliedId, primaryId,
+                    Math.max(0, primaryId - appliedId), lagMillis(), connected, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("tasklist.replication.lag.events", this, client -> client.status().lagEvents())
+                .description("Events applied on the primary but not yet on this follower")
+                .register(registry);
+        TimeGauge.builder("tasklist.replication.lag", this, TimeUnit.MILLISECONDS, client -> client.status().lagMillis())
+                .description("How long this follower has been behind the primary or out of contact with it")
+                .register(registry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        Socket current = socket;
+        if (current != null) {
+            current.close();
+        }
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            try (Socket connection = new Socket()) {
+                socket = connection;
+                connection.connect(primary, CONNECT_TIMEOUT_MILLIS);
+                connection.setTcpNoDelay(true);
+                connection.setSoTimeout(readTimeoutMillis);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+                ReplicationProtocol.writeHello(out, helloFor());
+                out.flush();
+                follow(new DataInputStream(new BufferedInputStream(connection.getInputStream(), 1 << 16)));
+            } catch (SocketTimeoutException e) {
+                log.warn("Nothing from {} for {} ms, reconnecting", primary, readTimeoutMillis);
+            } catch (IOException e) {
+                if (!closed) {
+                    log.debug("Replication from {} interrupted", primary, e);
+                }
+            } catch (RuntimeException e) {
+                // the local state can't be trusted any more; the next connection reloads it from a snapshot
+                log.error("Applying a replicated change failed, reloading from the primary", e);
+                lock.lock();
+                try {
+                    epoch = "";
+                } finally {
+                    lock.unlock();
+                }
+            } finally {
+                update(() -> connected = false);
+            }
+            if (!closed) {
+                sleep(retryDelay);
+            }
+        }
+    }
+
+    private ReplicationProtocol.Hello helloFor() {
+        lock.lock();
+        try {
+            return new ReplicationProtocol.Hello(epoch, appliedId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void follow(DataInputStream in) throws IOException {
+        update(() -> connected = true);
+        while (true) {
+            byte type = in.readByte();
+            switch (type) {
+                case ReplicationProtocol.SNAPSHOT -> {
+                    ReplicationProtocol.Snapshot snapshot = ReplicationProtocol.readSnapshot(in);
+                    repository.reset(snapshot.snapshot());
+                    service.reindex();
+                    log.info("Loaded a snapshot of {} projects at event {}",
+                            snapshot.snapshot().projects().size(), snapshot.eventId());
+                    update(() -> {
+                        epoch = snapshot.epoch();
+                        appliedId = snapshot.eventId();
+                        primaryId = snapshot.eventId();
+                    });
+                }
+                case ReplicationProtocol.EVENT -> {
+                    long id = in.readLong();
+                    TaskEvent event = ReplicationProtocol.readEvent(in);
+                    service.applyReplicated(event);
+                    update(() -> {
+                        appliedId = id;
+                        primaryId = Math.max(primaryId, id);
+                    });
+                }
+                case ReplicationProtocol.HEARTBEAT -> {
+                    long id = in.readLong();
+                    update(() -> primaryId = Math.max(primaryId, id));
+                }
+                default -> throw new IOException("Unknown replication frame: " + type);
+            }
+        }
+    }
+
+    // Applies a change to the position under the lock, then refreshes the lag bookkeeping and wakes waiting readers
+    private void update(Runnable change) {
+        lock.lock();
+        try {
+            change.run();
+            long now = System.nanoTime();
+            lastContact = now;
+            if (appliedId >= primaryId) {
+                behindSince = -1;
+            } else if (behindSince < 0) {
+                behindSince = now;
+            }
+            advanced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the lock held
+    private boolean covers(ReplicationToken token) {
+        if (epoch.isEmpty()) {
+            return false;
+        }
+        int byEpoch = epoch.compareTo(token.epoch());
+        return byEpoch > 0 || byEpoch == 0 && appliedId >= token.eventId();
+    }
+
+    // Called with the lock held
+    private long lagMillis() {
+        long now = System.nanoTime();
+        if (!connected) {
+            return TimeUnit.NANOSECONDS.toMillis(now - lastContact);
+        }
+        return behindSince < 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(now - behindSince);
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
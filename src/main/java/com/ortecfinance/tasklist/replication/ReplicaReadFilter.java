@@ -0,0 +1,66 @@
+package com.ortecfinance.tasklist.replication;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+// Follower: /projects is read-only here, writes get 405 and belong on the primary. A read that carries an
+// X-Replication-Token waits until the follower has applied that position, and gets 503 if it hasn't within
+// the read wait. Responses carry the follower's own position, so a client can keep its reads monotonic.
+public final class ReplicaReadFilter extends OncePerRequestFilter {
+
+    private final ReplicaClient client;
+    private final Duration readWait;
+
+    public ReplicaReadFilter(ReplicaClient client, Duration readWait) {
+        this.client = client;
+        this.readWait = readWait;
+    }
+
+    static boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        return method.equals("GET") || method.equals("HEAD") || method.equals("OPTIONS");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/projects");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!isRead(request)) {
+            response.setHeader("Allow", "GET, HEAD, OPTIONS");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED,
+                    "This is a read-only replica, send writes to the primary.");
+            return;
+        }
+        String token = request.getHeader(ReplicationToken.HEADER);
+        if (token != null) {
+            ReplicationToken wanted;
+            try {
+                wanted = ReplicationToken.parse(token);
+            } catch (IllegalArgumentException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+                return;
+            }
+            if (!client.awaitApplied(wanted, readWait)) {
+                response.setHeader("Retry-After", "1");
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                        "The replica has not caught up with " + wanted + " yet.");
+                return;
+            }
+        }
+        ReplicationToken position = client.position();
+        if (position != null) {
+            response.setHeader(ReplicationToken.HEADER, position.toString());
+        }
+        chain.doFilter(request, response);
+    }
+}
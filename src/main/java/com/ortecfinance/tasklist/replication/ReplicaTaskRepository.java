@@ -0,0 +1,192 @@
+package com.ortecfinance.tasklist.replication;
+
+import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.repository.ConcurrentTaskRepository;
+import com.ortecfinance.tasklist.repository.TaskQuery;
+import com.ortecfinance.tasklist.repository.TaskRepository;
+import com.ortecfinance.tasklist.repository.TaskSnapshot;
+import com.ortecfinance.tasklist.repository.TaskStats;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.function.Supplier;
+
+// Follower-side repository. The replicated state lives in a ConcurrentTaskRepository that is swapped
+// for a freshly loaded one whenever the follower receives a snapshot from the primary. Versions carry
+// on from where the previous store left off, so entity tags handed out before a reload never match after it.
+public final class ReplicaTaskRepository implements TaskRepository {
+
+    private record Store(TaskRepository repository, long versionBase) {}
+
+    private volatile Store store = new Store(new ConcurrentTaskRepository(), 0);
+
+    // Replaces everything with the snapshot; only the replication client calls this, never concurrently
+    // with its own writes
+    public void reset(TaskSnapshot snapshot) {
+        ConcurrentTaskRepository loaded = new ConcurrentTaskRepository();
+        snapshot.projects().forEach((name, tasks) -> {
+            loaded.addProject(name);
+            loaded.restoreTasks(name, tasks);
+        });
+        Store current = store;
+        store = new Store(loaded, current.versionBase() + current.repository().version() + 1);
+    }
+
+    private TaskRepository repository() {
+        return store.repository();
+    }
+
+    @Override
+    public void addProject(String name) {
+        repository().addProject(name);
+    }
+
+    @Override
+    public boolean hasProject(String name) {
+        return repository().hasProject(name);
+    }
+
+    @Override
+    public Task addTask(String projectName, String description) {
+        return repository().addTask(projectName, description);
+    }
+
+    @Override
+    public void restoreTask(String projectName, Task task) {
+        repository().restoreTask(projectName, task);
+    }
+
+    @Override
+    public void restoreTasks(String projectName, List<Task> tasks) {
+        repository().restoreTasks(projectName, tasks);
+    }
+
+    @Override
+    public List<Optional<Task>> addTasks(List<NewTask> tasks) {
+        return repository().addTasks(tasks);
+    }
+
+    @Override
+    public List<Optional<Task>> setTasksDone(List<DoneChange> changes) {
+        return repository().setTasksDone(changes);
+    }
+
+    @Override
+    public List<Optional<Task>> setTaskDeadlines(List<DeadlineChange> changes) {
+        return repository().setTaskDeadlines(changes);
+    }
+
+    @Override
+    public Map<String, List<Task>> getAllProjectsWithTasks() {
+        return repository().getAllProjectsWithTasks();
+    }
+
+    @Override
+    public TaskSnapshot snapshot() {
+        Store current = store;
+        TaskSnapshot snapshot = current.repository().snapshot();
+        return new TaskSnapshot(current.versionBase() + snapshot.version(), snapshot.projects());
+    }
+
+    @Override
+    public long version() {
+        Store current = store;
+        return current.versionBase() + current.repository().version();
+    }
+
+    @Override
+    // A resync in the middle swaps the store under the read, so it starts over on the new one
+    public <T> T consistentRead(Supplier<T> read) {
+        while (true) {
+            Store current = store;
+            T value = current.repository().consistentRead(read);
+            if (store == current) {
+                return value;
+            }
+        }
+    }
+
+    @Override
+    public long projectVersion(String projectName) {
+        Store current = store;
+        return current.versionBase() + current.repository().projectVersion(projectName);
+    }
+
+    @Override
+    public List<String> getProjectNames() {
+        return repository().getProjectNames();
+    }
+
+    @Override
+    public List<Task> getTasks(String projectName, long afterId, int limit) {
+        return repository().getTasks(projectName, afterId, limit);
+    }
+
+    @Override
+    public Optional<Task> findTaskById(long id) {
+        return repository().findTaskById(id);
+    }
+
+    @Override
+    public Optional<String> findProjectByTaskId(long id) {
+        return repository().findProjectByTaskId(id);
+    }
+
+    @Override
+    public Optional<Task> setTaskDone(long id, boolean done) {
+        return repository().setTaskDone(id, done);
+    }
+
+    @Override
+    public Optional<Task> setTaskDeadline(long id, LocalDate deadline) {
+        return repository().setTaskDeadline(id, deadline);
+    }
+
+    @Override
+    public boolean supportsConditionalUpdates() {
+        return repository().supportsConditionalUpdates();
+    }
+
+    @Override
+    public Optional<ConditionalUpdate> compareAndSetTaskDone(long id, long expectedVersion, boolean done) {
+        return repository().compareAndSetTaskDone(id, expectedVersion, done);
+    }
+
+    @Override
+    public Optional<ConditionalUpdate> compareAndSetTaskDeadline(long id, long expectedVersion, LocalDate deadline) {
+        return repository().compareAndSetTaskDeadline(id, expectedVersion, deadline);
+    }
+
+    @Override
+    public SortedMap<LocalDate, Map<String, List<Task>>> getTasksByDeadline() {
+        return repository().getTasksByDeadline();
+    }
+
+    @Override
+    public Map<String, List<Task>> getTasksWithoutDeadline() {
+        return repository().getTasksWithoutDeadline();
+    }
+
+    @Override
+    public Map<String, List<Task>> getTasksDueOn(LocalDate date) {
+        return repository().getTasksDueOn(date);
+    }
+
+    @Override
+    public SortedMap<LocalDate, Integer> countTasksByDeadline(LocalDate from, LocalDate to) {
+        return repository().countTasksByDeadline(from, to);
+    }
+
+    @Override
+    public Map<String, TaskStats> getProjectStats(LocalDate today) {
+        return repository().getProjectStats(today);
+    }
+
+    @Override
+    public TaskQuery.Result query(TaskQuery query) {
+        return repository().query(query);
+    }
+}
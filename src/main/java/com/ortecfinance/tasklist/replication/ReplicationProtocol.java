@@ -0,0 +1,169 @@
+package com.ortecfinance.tasklist.replication;
+
+import com.ortecfinance.tasklist.events.TaskEvent;
+import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.repository.TaskSnapshot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+// Wire format between a primary and its followers, big-endian through Data streams.
+//
+// Once per connection the follower sends a hello: int magic, the primary epoch it last followed (empty the
+// first time) and the last event ID it applied. The primary then sends frames, each a type byte followed by:
+//   SNAPSHOT  epoch, long event ID the snapshot includes, int project count, then per project its name,
+//             int task count and each task as long id, long version, boolean done, long deadline epoch day
+//             and description
+//   EVENT     long event ID and the TaskEvent, as a type byte plus its fields
+//   HEARTBEAT long last event ID on the primary
+// Strings are an int byte length plus UTF-8; a missing deadline is NO_DEADLINE.
+final class ReplicationProtocol {
+
+    static final int MAGIC = 0x544C5250; // "TLRP"
+
+    static final byte SNAPSHOT = 1;
+    static final byte EVENT = 2;
+    static final byte HEARTBEAT = 3;
+
+    private static final byte PROJECT_ADDED = 1;
+    private static final byte TASK_ADDED = 2;
+    private static final byte DONE_CHANGED = 3;
+    private static final byte DEADLINE_CHANGED = 4;
+
+    private static final long NO_DEADLINE = Long.MIN_VALUE;
+
+    record Hello(String epoch, long lastEventId) {}
+
+    record Snapshot(String epoch, long eventId, TaskSnapshot snapshot) {}
+
+    private ReplicationProtocol() {
+    }
+
+    static void writeHello(DataOutput out, Hello hello) throws IOException {
+        out.writeInt(MAGIC);
+        writeString(out, hello.epoch());
+        out.writeLong(hello.lastEventId());
+    }
+
+    static Hello readHello(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a replication follower.");
+        }
+        return new Hello(readString(in), in.readLong());
+    }
+
+    static void writeSnapshot(DataOutput out, String epoch, long eventId, TaskSnapshot snapshot) throws IOException {
+        out.writeByte(SNAPSHOT);
+        writeString(out, epoch);
+        out.writeLong(eventId);
+        out.writeInt(snapshot.projects().size());
+        for (Entry<String, List<Task>> project : snapshot.projects().entrySet()) {
+            writeString(out, project.getKey());
+            out.writeInt(project.getValue().size());
+            for (Task task : project.getValue()) {
+                out.writeLong(task.getId());
+                out.writeLong(task.getVersion());
+                out.writeBoolean(task.isDone());
+                writeDate(out, task.getDeadline());
+                writeString(out, task.getDescription());
+            }
+        }
+    }
+
+    // Called after the SNAPSHOT type byte
+    static Snapshot readSnapshot(DataInput in) throws IOException {
+        String epoch = readString(in);
+        long eventId = in.readLong();
+        int projectCount = in.readInt();
+        Map<String, List<Task>> projects = new LinkedHashMap<>();
+        for (int p = 0; p < projectCount; p++) {
+            String name = readString(in);
+            int taskCount = in.readInt();
+            List<Task> tasks = new ArrayList<>(taskCount);
+            for (int t = 0; t < taskCount; t++) {
+                long id = in.readLong();
+                long version = in.readLong();
+                boolean done = in.readBoolean();
+                LocalDate deadline = readDate(in);
+                tasks.add(new Task(id, readString(in), done, deadline, version));
+            }
+            projects.put(name, tasks);
+        }
+        return new Snapshot(epoch, eventId, new TaskSnapshot(eventId, projects));
+    }
+
+    static void writeEvent(DataOutput out, long eventId, TaskEvent event) throws IOException {
+        out.writeByte(EVENT);
+        out.writeLong(eventId);
+        switch (event) {
+            case TaskEvent.ProjectAdded e -> {
+                out.writeByte(PROJECT_ADDED);
+                writeString(out, e.project());
+            }
+            case TaskEvent.TaskAdded e -> {
+                out.writeByte(TASK_ADDED);
+                writeString(out, e.project());
+                out.writeLong(e.taskId());
+                writeString(out, e.description());
+            }
+            case TaskEvent.DoneChanged e -> {
+                out.writeByte(DONE_CHANGED);
+                writeString(out, e.project());
+                out.writeLong(e.taskId());
+                out.writeBoolean(e.done());
+            }
+            case TaskEvent.DeadlineChanged e -> {
+                out.writeByte(DEADLINE_CHANGED);
+                writeString(out, e.project());
+                out.writeLong(e.taskId());
+                writeDate(out, e.deadline());
+            }
+        }
+    }
+
+    // Called after the EVENT type byte and the event ID
+    static TaskEvent readEvent(DataInput in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case PROJECT_ADDED -> new TaskEvent.ProjectAdded(readString(in));
+            case TASK_ADDED -> new TaskEvent.TaskAdded(readString(in), in.readLong(), readString(in));
+            case DONE_CHANGED -> new TaskEvent.DoneChanged(readString(in), in.readLong(), in.readBoolean());
+            case DEADLINE_CHANGED -> new TaskEvent.DeadlineChanged(readString(in), in.readLong(), readDate(in));
+            default -> throw new IOException("Unknown event type: " + type);
+        };
+    }
+
+    static void writeHeartbeat(DataOutput out, long lastEventId) throws IOException {
+        out.writeByte(HEARTBEAT);
+        out.writeLong(lastEventId);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? NO_DEADLINE : date.toEpochDay());
+    }
+
+    private static LocalDate readDate(DataInput in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay == NO_DEADLINE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+}
@@ -0,0 +1,236 @@
+package com.ortecfinance.tasklist.replication;
+
+import com.ortecfinance.tasklist.events.ChangeFeed;
+import com.ortecfinance.tasklist.service.TaskService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Primary side of replication: streams the change feed to followers over TCP.
+//
+// A follower that reconnects to the same primary run resumes after the last event it applied, served
+// from the feed's history. A new follower, one that followed an earlier run, or one that fell further
+// behind than the history reaches gets a full snapshot first and the events after it.
+// Each follower is served on its own virtual thread; a follower too slow to keep up is dropped by the
+// feed and picks up again when it reconnects. Idle connections carry heartbeats with the latest event ID,
+// which is what followers measure their lag against. Every follower's heartbeats come from a virtual thread
+// of its own, so one that stopped reading holds up nobody else's.
+public final class ReplicationServer implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationServer.class);
+
+    private final TaskService service;
+    private final ServerSocket serverSocket;
+    // event IDs restart with the process, so followers must know which run they followed; fixed-width start
+    // time first, so a later run compares greater, then a random part in case two start in the same millisecond
+    private final String epoch = String.format("%012x%08x", System.currentTimeMillis(), new SecureRandom().nextInt());
+    private final Set<Follower> followers = ConcurrentHashMap.newKeySet();
+    private final Duration heartbeatInterval;
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    public ReplicationServer(TaskService service, InetSocketAddress address, Duration heartbeatInterval)
+            throws IOException {
+        if (heartbeatInterval.isNegative() || heartbeatInterval.isZero()) {
+            throw new IllegalArgumentException("Heartbeat interval must be positive: " + heartbeatInterval);
+        }
+        this.service = service;
+        this.heartbeatInterval = heartbeatInterval;
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+        this.acceptor = Thread.ofPlatform().daemon().name("replication-acceptor").start(this::acceptLoop);
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    // Where the primary's feed is now; a write is included once its request has returned
+    public ReplicationToken position() {
+        return new ReplicationToken(epoch, service.getChangeFeed().lastId());
+    }
+
+    public ReplicationStatus status() {
+        long eventId = service.getChangeFeed().lastId();
+        return new ReplicationStatus("primary", epoch, eventId, eventId, 0, 0, true, followers.size());
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        followers.forEach(Follower::close);
+        try {
+            acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread.ofVirtual().name("replication-follower").start(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    log.warn("Accepting a follower failed", e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Follower follower = null;
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            ReplicationProtocol.Hello hello = ReplicationProtocol.readHello(
+                    new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+            follower = new Follower(socket);
+            followers.add(follower);
+            follower.startHeartbeats();
+            // after 0 the feed would only deliver new events, so an empty follower always starts from a snapshot
+            long resumeAfter = epoch.equals(hello.epoch()) && hello.lastEventId() > 0 ? hello.lastEventId() : -1;
+            log.info("Follower {} connected, {}", socket.getRemoteSocketAddress(),
+                    resumeAfter < 0 ? "sending a snapshot" : "resuming after event " + resumeAfter);
+            while (!closed && follower.stream(resumeAfter) == ChangeFeed.CloseReason.HISTORY_LOST) {
+                resumeAfter = -1;
+            }
+        } catch (IOException e) {
+            log.debug("Follower {} failed", socket.getRemoteSocketAddress(), e);
+        } finally {
+            if (follower != null) {
+                followers.remove(follower);
+                follower.close();
+            }
+            log.info("Follower {} disconnected", socket.getRemoteSocketAddress());
+        }
+    }
+
+    private final class Follower {
+        private final Socket socket;
+        private final DataOutputStream out;
+        // one frame at a time on the socket
+        private final Lock sending = new ReentrantLock();
+        private volatile ChangeFeed.Subscription subscription;
+        private volatile Thread heartbeats;
+
+        private Follower(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+        }
+
+        // Streams events until the subscription ends and returns why it ended
+        private ChangeFeed.CloseReason stream(long resumeAfter) throws IOException {
+            CompletableFuture<ChangeFeed.CloseReason> ended = new CompletableFuture<>();
+            // events wait until the snapshot they follow has been sent
+            CountDownLatch started = new CountDownLatch(1);
+            ChangeFeed.Subscriber subscriber = new ChangeFeed.Subscriber() {
+                @Override
+                public void onEvent(ChangeFeed.Entry entry) throws IOException {
+                    try {
+                        started.await();
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    }
+                    sending.lock();
+                    try {
+                        ReplicationProtocol.writeEvent(out, entry.id(), entry.event());
+                        out.flush();
+                    } finally {
+                        sending.unlock();
+                    }
+                }
+
+                @Override
+                public void onClose(ChangeFeed.CloseReason reason) {
+                    ended.complete(reason);
+                }
+            };
+            try {
+                if (resumeAfter < 0) {
+                    TaskService.FeedStart start = service.subscribeWithSnapshot(subscriber);
+                    subscription = start.subscription();
+                    sending.lock();
+                    try {
+                        ReplicationProtocol.writeSnapshot(out, epoch, start.eventId(), start.snapshot());
+                        out.flush();
+                    } finally {
+                        sending.unlock();
+                    }
+                } else {
+                    subscription = service.getChangeFeed().subscribe(resumeAfter, subscriber);
+                }
+            } catch (IOException e) {
+                subscription.cancel();
+                throw e;
+            } finally {
+                started.countDown();
+            }
+            try {
+                return ended.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                subscription.cancel();
+                return ChangeFeed.CloseReason.CANCELLED;
+            } catch (ExecutionException e) {
+                return ChangeFeed.CloseReason.FAILED;
+            }
+        }
+
+        private void startHeartbeats() {
+            heartbeats = Thread.ofVirtual().name("replication-heartbeat").start(() -> {
+                try {
+                    while (!socket.isClosed()) {
+                        Thread.sleep(heartbeatInterval);
+                        heartbeat(service.getChangeFeed().lastId());
+                    }
+                } catch (InterruptedException e) {
+                    // closed
+                }
+            });
+        }
+
+        // Skipped while something else is being sent: the connection isn't idle then
+        private void heartbeat(long lastEventId) {
+            if (!sending.tryLock()) {
+                return;
+            }
+            try {
+                ReplicationProtocol.writeHeartbeat(out, lastEventId);
+                out.flush();
+            } catch (IOException e) {
+                // the follower went away; ending its subscription ends its connection
+                close();
+            } finally {
+                sending.unlock();
+            }
+        }
+
+        private void close() {
+            Thread sender = heartbeats;
+            if (sender != null && sender != Thread.currentThread()) {
+                sender.interrupt();
+            }
+            ChangeFeed.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // already gone
+            }
+        }
+    }
+}
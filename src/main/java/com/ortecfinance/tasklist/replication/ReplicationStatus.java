@@ -0,0 +1,7 @@
+package com.ortecfinance.tasklist.replication;
+
+// GET /replication. On a primary the lag fields are zero and followers counts the connected followers;
+// on a follower lagEvents is how many events it knows it is missing and lagMillis how long it has been
+// behind (or out of contact with the primary).
+public record ReplicationStatus(String role, String epoch, long eventId, long primaryEventId,
+                                long lagEvents, long lagMillis, boolean connected, int followers) {}
@@ -0,0 +1,30 @@
+package com.ortecfinance.tasklist.replication;
+
+// A position in the primary's change feed, handed to clients after a write and sent back on a read so a
+// follower can hold the read until it has applied that write. The epoch identifies one run of the primary,
+// since event IDs restart with the process.
+public record ReplicationToken(String epoch, long eventId) {
+
+    public static final String HEADER = "X-Replication-Token";
+
+    public static ReplicationToken parse(String token) {
+        int separator = token.lastIndexOf('.');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Invalid replication token.");
+        }
+        try {
+            long eventId = Long.parseLong(token.substring(separator + 1));
+            if (eventId < 0) {
+                throw new IllegalArgumentException("Invalid replication token.");
+            }
+            return new ReplicationToken(token.substring(0, separator), eventId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid replication token.", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return epoch + "." + eventId;
+    }
+}
@@ -0,0 +1,601 @@
+package com.ortecfinance.tasklist.repository;
+
+import com.ortecfinance.tasklist.model.Task;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+// Struct-of-arrays store: each task is a row spread over primitive columns instead of a Task object
+// inside per-project ArrayLists. Per task this keeps an 8-byte ID, a done bit, a 4-byte epoch-day
+// deadline, an 8-byte version, a 4-byte project ordinal, a 4-byte ID-to-row slot and a reference to a
+// pooled description.
+//
+// Task objects are only built at the API edge, as detached copies; changing one has no effect on the
+// store. The deadline and today views scan the deadline column, which stays in cache far better than
+// a walk over Task objects. One read/write lock guards the whole store, so it offers no conditional
+// updates: they would queue every writer behind each version check.
+//
+// Snapshots keep the column layout too: each project's rows are copied into compact arrays and tasks are
+// built only as they are read. A snapshot is rebuilt under the read lock on the first read after a write,
+// copying only the projects that changed; later reads take no lock at all.
+public final class ColumnarTaskRepository implements TaskRepository {
+
+    private static final int NO_DEADLINE = Integer.MIN_VALUE;
+    private static final int NO_ROW = -1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // task columns, indexed by row
+    private long[] ids = new long[1024];
+    private final BitSet done = new BitSet();
+    private int[] deadlines = new int[1024];
+    private long[] versions = new long[1024];
+    private int[] projectOrdinals = new int[1024];
+    private String[] descriptions = new String[1024];
+    private int rowCount;
+
+    // direct-address ID -> row table; IDs are dense because they are handed out sequentially
+    private int[] rowById = new int[1024];
+
+    private final DescriptionPool descriptionPool = new DescriptionPool();
+
+    private final List<String> projectNames = new ArrayList<>();
+    private final Map<String, Integer> ordinalByName = new HashMap<>();
+    // rows of each project in ID order, indexed by project ordinal
+    private final List<IntList> projectRows = new ArrayList<>();
+    private final List<ProjectStats> projectStats = new ArrayList<>();
+    private long[] projectVersions = new long[16];
+
+    private long lastId = 0;
+    // only written with the write lock held
+    private volatile long version = 0;
+    private volatile TaskSnapshot snapshot = TaskSnapshot.EMPTY;
+    // one reader rebuilds a stale snapshot while the others wait for it; guards snapshotProjectVersions
+    private final Lock rebuildLock = new ReentrantLock();
+    // project versions the current snapshot was built at, indexed by ordinal
+    private long[] snapshotProjectVersions = new long[0];
+
+    public ColumnarTaskRepository() {
+        Arrays.fill(rowById, NO_ROW);
+    }
+
+    @Override
+    public void addProject(String name) {
+        write(() -> {
+            // avoid overwriting existing project
+            if (!ordinalByName.containsKey(name)) {
+                ordinalByName.put(name, projectNames.size());
+                projectNames.add(name);
+                projectRows.add(new IntList());
+                projectStats.add(new ProjectStats());
+                if (projectVersions.length < projectNames.size()) {
+                    projectVersions = Arrays.copyOf(projectVersions, projectVersions.length * 2);
+                }
+                changed(projectNames.size() - 1);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public boolean hasProject(String name) {
+        return read(() -> ordinalByName.containsKey(name));
+    }
+
+    @Override
+    public Task addTask(String projectName, String description) {
+        return write(() -> {
+            int row = insert(ordinal(projectName), lastId + 1, descriptionPool.intern(description), false, NO_DEADLINE, 1);
+            lastId++;
+            return view(row);
+        });
+    }
+
+    @Override
+    public void restoreTask(String projectName, Task task) {
+        write(() -> {
+            insert(ordinal(projectName), task.getId(), descriptionPool.intern(task.getDescription()),
+                    task.isDone(), epochDay(task.getDeadline()), task.getVersion());
+            lastId = Math.max(lastId, task.getId());
+            return null;
+        });
+    }
+
+    @Override
+    public Map<String, List<Task>> getAllProjectsWithTasks() {
+        return snapshot().projects();
+    }
+
+    @Override
+    public TaskSnapshot snapshot() {
+        TaskSnapshot cached = snapshot;
+        if (cached.version() == version) {
+            return cached;
+        }
+        rebuildLock.lock();
+        try {
+            return read(() -> {
+                // another reader may have rebuilt it while this one waited; the version can't move now
+                TaskSnapshot previous = snapshot;
+                if (previous.version() == version) {
+                    return previous;
+                }
+                Map<String, List<Task>> projects = new LinkedHashMap<>();
+                long[] builtAt = Arrays.copyOf(snapshotProjectVersions, projectNames.size());
+                for (int p = 0; p < projectNames.size(); p++) {
+                    String name = projectNames.get(p);
+                    boolean unchanged = p < snapshotProjectVersions.length && builtAt[p] == projectVersions[p];
+                    projects.put(name, unchanged ? previous.projects().get(name) : copyRows(projectRows.get(p)));
+                    builtAt[p] = projectVersions[p];
+                }
+                snapshotProjectVersions = builtAt;
+                snapshot = new TaskSnapshot(version, projects);
+                return snapshot;
+            });
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @Override
+    public long version() {
+        return version;
+    }
+
+    @Override
+    public long projectVersion(String projectName) {
+        return read(() -> projectVersions[ordinal(projectName)]);
+    }
+
+    @Override
+    public List<String> getProjectNames() {
+        return read(() -> List.copyOf(projectNames));
+    }
+
+    @Override
+    public List<Task> getTasks(String projectName, long afterId, int limit) {
+        return read(() -> {
+            IntList rows = projectRows.get(ordinal(projectName));
+            // binary search on the ID column for the first row after afterId
+            int low = 0;
+            int high = rows.size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ids[rows.values[mid]] <= afterId) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            int end = Math.min(rows.size, low + Math.max(limit, 0));
+            List<Task> tasks = new ArrayList<>(end - low);
+            for (int i = low; i < end; i++) {
+                tasks.add(view(rows.values[i]));
+            }
+            return tasks;
+        });
+    }
+
+    @Override
+    public Optional<Task> findTaskById(long id) {
+        return read(() -> {
+            int row = row(id);
+            return row == NO_ROW ? Optional.empty() : Optional.of(view(row));
+        });
+    }
+
+    @Override
+    public Optional<String> findProjectByTaskId(long id) {
+        return read(() -> {
+            int row = row(id);
+            return row == NO_ROW ? Optional.empty() : Optional.of(projectNames.get(projectOrdinals[row]));
+        });
+    }
+
+    @Override
+    public Optional<Task> setTaskDone(long id, boolean isDone) {
+        return update(id, row -> setDone(row, isDone));
+    }
+
+    @Override
+    public Optional<Task> setTaskDeadline(long id, LocalDate deadline) {
+        return update(id, row -> setDeadline(row, epochDay(deadline)));
+    }
+
+    private Optional<Task> update(long id, IntConsumer change) {
+        return write(() -> {
+            int row = row(id);
+            if (row == NO_ROW) {
+                return Optional.empty();
+            }
+            change.accept(row);
+            changed(projectOrdinals[row]);
+            return Optional.of(view(row));
+        });
+    }
+
+    @Override
+    public boolean supportsConditionalUpdates() {
+        return false;
+    }
+
+    @Override
+    public Optional<ConditionalUpdate> compareAndSetTaskDone(long id, long expectedVersion, boolean isDone) {
+        throw new UnsupportedOperationException("The columnar store has no conditional updates.");
+    }
+
+    @Override
+    public Optional<ConditionalUpdate> compareAndSetTaskDeadline(long id, long expectedVersion, LocalDate deadline) {
+        throw new UnsupportedOperationException("The columnar store has no conditional updates.");
+    }
+
+    @Override
+    // The whole batch is applied under one write lock acquisition
+    public List<Optional<Task>> addTasks(List<NewTask> tasks) {
+        return write(() -> {
+            List<Optional<Task>> results = new ArrayList<>(tasks.size());
+            for (NewTask task : tasks) {
+                Integer ordinal = ordinalByName.get(task.projectName());
+                if (ordinal == null) {
+                    results.add(Optional.empty());
+                    continue;
+                }
+                int row = insert(ordinal, lastId + 1, descriptionPool.intern(task.description()), false, NO_DEADLINE, 1);
+                lastId++;
+                results.add(Optional.of(view(row)));
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public List<Optional<Task>> setTasksDone(List<DoneChange> changes) {
+        return write(() -> {
+            List<Optional<Task>> results = new ArrayList<>(changes.size());
+            for (DoneChange change : changes) {
+                int row = row(change.taskId());
+                if (row != NO_ROW) {
+                    setDone(row, change.done());
+                    changed(projectOrdinals[row]);
+                }
+                results.add(row == NO_ROW ? Optional.empty() : Optional.of(view(row)));
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public List<Optional<Task>> setTaskDeadlines(List<DeadlineChange> changes) {
+        return write(() -> {
+            List<Optional<Task>> results = new ArrayList<>(changes.size());
+            for (DeadlineChange change : changes) {
+                int row = row(change.taskId());
+                if (row != NO_ROW) {
+                    setDeadline(row, epochDay(change.deadline()));
+                    changed(projectOrdinals[row]);
+                }
+                results.add(row == NO_ROW ? Optional.empty() : Optional.of(view(row)));
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public SortedMap<LocalDate, Map<String, List<Task>>> getTasksByDeadline() {
+        return read(() -> {
+            // group rows per epoch day first, so LocalDate and Task objects are only built for the result
+            SortedMap<Integer, Map<String, List<Task>>> byDay = new TreeMap<>();
+            for (int p = 0; p < projectNames.size(); p++) {
+                IntList rows = projectRows.get(p);
+                String projectName = projectNames.get(p);
+                for (int i = 0; i < rows.size; i++) {
+                    int row = rows.values[i];
+                    int day = deadlines[row];
+                    if (day != NO_DEADLINE) {
+                        byDay.computeIfAbsent(day, d -> new LinkedHashMap<>())
+                                .computeIfAbsent(projectName, k -> new ArrayList<>())
+                                .add(view(row));
+                    }
+                }
+            }
+            SortedMap<LocalDate, Map<String, List<Task>>> result = new TreeMap<>();
+            byDay.forEach((day, projects) -> result.put(LocalDate.ofEpochDay(day), projects));
+            return result;
+        });
+    }
+
+    @Override
+    public Map<String, List<Task>> getTasksWithoutDeadline() {
+        return read(() -> tasksWithDeadlineDay(NO_DEADLINE));
+    }
+
+    @Override
+    public Map<String, List<Task>> getTasksDueOn(LocalDate date) {
+        return read(() -> tasksWithDeadlineDay(epochDay(date)));
+    }
+
+    @Override
+    public Map<String, TaskStats> getProjectStats(LocalDate today) {
+        return read(() -> {
+            Map<String, TaskStats> result = new LinkedHashMap<>();
+            for (int p = 0; p < projectNames.size(); p++) {
+                result.put(projectNames.get(p), projectStats.get(p).stats(today));
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public SortedMap<LocalDate, Integer> countTasksByDeadline(LocalDate from, LocalDate to) {
+        return read(() -> {
+            int first = epochDay(from);
+            int last = epochDay(to);
+            // one counter per day of the range, filled in a single pass over the deadline column
+            int[] counts = new int[last - first + 1];
+            for (int row = 0; row < rowCount; row++) {
+                int day = deadlines[row];
+                if (day >= first && day <= last) {
+                    counts[day - first]++;
+                }
+            }
+            SortedMap<LocalDate, Integer> result = new TreeMap<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    result.put(LocalDate.ofEpochDay(first + i), counts[i]);
+                }
+            }
+            return result;
+        });
+    }
+
+    @Override
+    // Walks the project's rows or the done bitmap when either is smaller than the whole store, otherwise
+    // scans the columns. Filters are checked on the primitive columns, so Tasks are only built for matches.
+    // There is no deadline index here: a range is one more column comparison during the walk.
+    public TaskQuery.Result query(TaskQuery query) {
+        return read(() -> {
+            Integer ordinal = query.project() == null ? null : ordinalByName.get(query.project());
+            if (query.project() != null && ordinal == null) {
+                return new TaskQuery.Result(TaskQuery.Plan.PROJECT, List.of());
+            }
+            TaskQuery.Plan plan = TaskQuery.Plan.FULL_SCAN;
+            long cost = rowCount;
+            if (query.done() != null) {
+                // one pass over the bitmap words, far cheaper than the rows it may save
+                int doneRows = done.cardinality();
+                long status = query.done() ? doneRows : rowCount - doneRows;
+                if (status < cost) {
+                    plan = TaskQuery.Plan.DONE_STATUS;
+                    cost = status;
+                }
+            }
+            if (ordinal != null && projectRows.get(ordinal).size <= cost) {
+                plan = TaskQuery.Plan.PROJECT;
+            }
+
+            // project rows are in ID order; rows overall are not once snapshots have been restored
+            QueryCollector collector = new QueryCollector(query, plan,
+                    plan == TaskQuery.Plan.PROJECT && query.sort() == TaskQuery.Sort.ID);
+            int from = query.deadlineFrom() == null ? NO_DEADLINE + 1 : epochDay(query.deadlineFrom());
+            int to = query.deadlineTo() == null ? Integer.MAX_VALUE : epochDay(query.deadlineTo());
+            switch (plan) {
+                case PROJECT -> {
+                    IntList rows = projectRows.get(ordinal);
+                    for (int i = 0; i < rows.size; i++) {
+                        if (!offer(collector, query, rows.values[i], ordinal, from, to)) {
+                            break;
+                        }
+                    }
+                }
+                case DONE_STATUS -> {
+                    boolean wanted = query.done();
+                    for (int row = wanted ? done.nextSetBit(0) : done.nextClearBit(0);
+                         row >= 0 && row < rowCount;
+                         row = wanted ? done.nextSetBit(row + 1) : done.nextClearBit(row + 1)) {
+                        offer(collector, query, row, ordinal, from, to);
+                    }
+                }
+                default -> {
+                    for (int row = 0; row < rowCount; row++) {
+                        offer(collector, query, row, ordinal, from, to);
+                    }
+                }
+            }
+            return collector.result();
+        });
+    }
+
+    // Called with the lock held
+    private boolean offer(QueryCollector collector, TaskQuery query, int row, Integer ordinal, int from, int to) {
+        if (ordinal != null && projectOrdinals[row] != ordinal
+                || query.done() != null && done.get(row) != query.done()
+                || query.hasDeadlineRange() && (deadlines[row] < from || deadlines[row] > to)) {
+            return true;
+        }
+        return collector.offer(projectOrdinals[row], projectNames.get(projectOrdinals[row]), view(row));
+    }
+
+    // Called with the lock held; scans the deadline column project by project
+    private Map<String, List<Task>> tasksWithDeadlineDay(int day) {
+        Map<String, List<Task>> result = new LinkedHashMap<>();
+        for (int p = 0; p < projectNames.size(); p++) {
+            IntList rows = projectRows.get(p);
+            List<Task> matching = null;
+            for (int i = 0; i < rows.size; i++) {
+                int row = rows.values[i];
+                if (deadlines[row] == day) {
+                    if (matching == null) {
+                        matching = new ArrayList<>();
+                        result.put(projectNames.get(p), matching);
+                    }
+                    matching.add(view(row));
+                }
+            }
+        }
+        return result;
+    }
+
+    private int insert(int projectOrdinal, long id, String description, boolean isDone, int deadline,
+                       long version) {
+        int row = rowCount;
+        if (row == ids.length) {
+            int capacity = row * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            deadlines = Arrays.copyOf(deadlines, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            projectOrdinals = Arrays.copyOf(projectOrdinals, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+        }
+        ids[row] = id;
+        done.set(row, isDone);
+        deadlines[row] = deadline;
+        versions[row] = version;
+        projectOrdinals[row] = projectOrdinal;
+        descriptions[row] = description;
+        rowCount++;
+
+        if (id >= rowById.length) {
+            int oldLength = rowById.length;
+            rowById = Arrays.copyOf(rowById, (int) Math.max(id + 1, oldLength * 2L));
+            Arrays.fill(rowById, oldLength, rowById.length, NO_ROW);
+        }
+        rowById[(int) id] = row;
+        projectRows.get(projectOrdinal).add(row);
+        projectStats.get(projectOrdinal).add(isDone, date(deadline));
+        changed(projectOrdinal);
+        return row;
+    }
+
+    // Called with the write lock held; the column writes that also move the project's counters and,
+    // like Task's setters, the task's version
+    private void setDone(int row, boolean isDone) {
+        projectStats.get(projectOrdinals[row]).update(done.get(row), date(deadlines[row]), isDone, date(deadlines[row]));
+        done.set(row, isDone);
+        versions[row]++;
+    }
+
+    private void setDeadline(int row, int day) {
+        boolean isDone = done.get(row);
+        projectStats.get(projectOrdinals[row]).update(isDone, date(deadlines[row]), isDone, date(day));
+        deadlines[row] = day;
+        versions[row]++;
+    }
+
+    // Called with the write lock held
+    private void changed(int projectOrdinal) {
+        projectVersions[projectOrdinal]++;
+        version++;
+    }
+
+    // Called with a lock held
+    private ProjectColumns copyRows(IntList rows) {
+        long[] rowIds = new long[rows.size];
+        BitSet rowDone = new BitSet(rows.size);
+        int[] rowDeadlines = new int[rows.size];
+        long[] rowVersions = new long[rows.size];
+        String[] rowDescriptions = new String[rows.size];
+        for (int i = 0; i < rows.size; i++) {
+            int row = rows.values[i];
+            rowIds[i] = ids[row];
+            rowDone.set(i, done.get(row));
+            rowDeadlines[i] = deadlines[row];
+            rowVersions[i] = versions[row];
+            rowDescriptions[i] = descriptions[row];
+        }
+        return new ProjectColumns(rowIds, rowDone, rowDeadlines, rowVersions, rowDescriptions);
+    }
+
+    private Task view(int row) {
+        return new Task(ids[row], descriptions[row], done.get(row), date(deadlines[row]), versions[row]);
+    }
+
+    private int row(long id) {
+        return id > 0 && id < rowById.length ? rowById[(int) id] : NO_ROW;
+    }
+
+    private int ordinal(String projectName) {
+        Integer ordinal = ordinalByName.get(projectName);
+        if (ordinal == null) {
+            throw new IllegalArgumentException("Project does not exist: " + projectName);
+        }
+        return ordinal;
+    }
+
+    private static LocalDate date(int epochDay) {
+        return epochDay == NO_DEADLINE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static int epochDay(LocalDate date) {
+        return date == null ? NO_DEADLINE : Math.toIntExact(date.toEpochDay());
+    }
+
+    @Override
+    public <T> T consistentRead(Supplier<T> read) {
+        return read(read);
+    }
+
+    private <T> T read(Supplier<T> body) {
+        lock.readLock().lock();
+        try {
+            return body.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T write(Supplier<T> body) {
+        lock.writeLock().lock();
+        try {
+            return body.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // One project's rows as copied into a snapshot; every read builds a detached Task
+    private static final class ProjectColumns extends AbstractList<Task> implements RandomAccess {
+        private final long[] ids;
+        private final BitSet done;
+        private final int[] deadlines;
+        private final long[] versions;
+        private final String[] descriptions;
+
+        private ProjectColumns(long[] ids, BitSet done, int[] deadlines, long[] versions, String[] descriptions) {
+            this.ids = ids;
+            this.done = done;
+            this.deadlines = deadlines;
+            this.versions = versions;
+            this.descriptions = descriptions;
+        }
+
+        @Override
+        public Task get(int index) {
+            Objects.checkIndex(index, ids.length);
+            return new Task(ids[index], descriptions[index], done.get(index), date(deadlines[index]), versions[index]);
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+    }
+
+    // growable int array, avoids boxing row numbers
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
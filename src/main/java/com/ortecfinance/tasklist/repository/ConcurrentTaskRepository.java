@@ -0,0 +1,19 @@
+package com.ortecfinance.tasklist.repository;
+
+// Thread-safe repository for the REST mode: a fixed number of stripes (see StripedTaskRepository), with
+// projects dealt to them in creation order so the stripes stay even. Writers to projects in different
+// stripes share no lock. The cross-project views read the stripes one at a time, so they only hold up the
+// writers of the stripe being read.
+public final class ConcurrentTaskRepository extends StripedTaskRepository {
+
+    private static final int STRIPES = 16;
+
+    public ConcurrentTaskRepository() {
+        super(STRIPES, false);
+    }
+
+    @Override
+    int stripeOf(String projectName, int ordinal, int stripeCount) {
+        return ordinal % stripeCount;
+    }
+}
@@ -0,0 +1,41 @@
+package com.ortecfinance.tasklist.repository;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Bounded dedup pool for task descriptions. It is a direct-mapped cache: every text hashes to one slot,
+// and a miss replaces whatever the slot held. Memory stays fixed, repeated texts such as recurring
+// chores share one String, and a rare evicted duplicate only costs one extra copy.
+// Safe for concurrent use: slots only ever hold Strings.
+final class DescriptionPool {
+
+    static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+
+    DescriptionPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    DescriptionPool(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    String intern(String text) {
+        int slot = spread(text.hashCode()) & mask;
+        String pooled = slots.get(slot);
+        if (text.equals(pooled)) {
+            return pooled;
+        }
+        slots.set(slot, text);
+        return text;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -2,17 +2,37 @@ package com.ortecfinance.tasklist.repository;
 
 import com.ortecfinance.tasklist.model.Task;
 
+import java.time.LocalDate;
 import java.util.*;
 
 public final class InMemoryTaskRepository implements TaskRepository {
 
     private final Map<String, List<Task>> tasksByProject = new LinkedHashMap<>();
+    // read-only views over tasksByProject handed to callers
+    private final Map<String, List<Task>> readOnlyProjects = new LinkedHashMap<>();
+    private final Map<String, List<Task>> readOnlyView = Collections.unmodifiableMap(readOnlyProjects);
+    // primary-key index, kept current by addTask so lookups by ID don't walk every project
+    private final Map<Long, Task> tasksById = new HashMap<>();
+    private final Map<Long, String> projectByTaskId = new HashMap<>();
+    private final Map<String, Integer> projectOrdinals = new HashMap<>();
+    private final Map<String, Long> projectVersions = new HashMap<>();
+    private final TaskIndex index = new TaskIndex();
+    private final Map<String, ProjectStats> stats = new LinkedHashMap<>();
+    private final DescriptionPool descriptions = new DescriptionPool();
     private long lastId = 0;
+    private long version = 0;
+    private TaskSnapshot snapshot = TaskSnapshot.EMPTY;
 
     @Override
     public void addProject(String name) {
         // avoid overwriting existing project
-        tasksByProject.putIfAbsent(name, new ArrayList<>());
+        List<Task> tasks = new ArrayList<>();
+        if (tasksByProject.putIfAbsent(name, tasks) == null) {
+            readOnlyProjects.put(name, Collections.unmodifiableList(tasks));
+            projectOrdinals.put(name, projectOrdinals.size());
+            stats.put(name, new ProjectStats());
+            changed(name);
+        }
     }
 
     @Override
@@ -22,32 +42,179 @@ public final class InMemoryTaskRepository implements TaskRepository {
 
     @Override
     public Task addTask(String projectName, String description) {
+        Task task = new Task(nextId(), descriptions.intern(description), false);
+        insert(projectName, task);
+        return task;
+    }
+
+    @Override
+    public void restoreTask(String projectName, Task task) {
+        Task restored = new Task(task.getId(), descriptions.intern(task.getDescription()), task.isDone(),
+                task.getDeadline(), task.getVersion());
+        insert(projectName, restored);
+        lastId = Math.max(lastId, task.getId());
+    }
+
+    private void insert(String projectName, Task task) {
         List<Task> projectTasks = tasksByProject.get(projectName);
         if (projectTasks == null) {
             throw new IllegalArgumentException("Project does not exist: " + projectName);
         }
 
-        Task task = new Task(nextId(), description, false);
         projectTasks.add(task);
-        return task;
+        tasksById.put(task.getId(), task);
+        projectByTaskId.put(task.getId(), projectName);
+        index.add(projectOrdinals.get(projectName), projectName, task);
+        stats.get(projectName).add(task);
+        changed(projectName);
     }
 
     @Override
     public Map<String, List<Task>> getAllProjectsWithTasks() {
-        return tasksByProject;
+        return readOnlyView;
+    }
+
+    @Override
+    // Copies the store at most once per version; the console is single-threaded so no locking is needed
+    public TaskSnapshot snapshot() {
+        if (snapshot.version() != version) {
+            Map<String, List<Task>> copy = new LinkedHashMap<>();
+            tasksByProject.forEach((name, tasks) -> copy.put(name, tasks.stream().map(Task::copy).toList()));
+            snapshot = new TaskSnapshot(version, copy);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public long version() {
+        return version;
+    }
+
+    @Override
+    public long projectVersion(String projectName) {
+        Long projectVersion = projectVersions.get(projectName);
+        if (projectVersion == null) {
+            throw new IllegalArgumentException("Project does not exist: " + projectName);
+        }
+        return projectVersion;
+    }
+
+    @Override
+    public List<String> getProjectNames() {
+        return List.copyOf(tasksByProject.keySet());
+    }
+
+    @Override
+    public List<Task> getTasks(String projectName, long afterId, int limit) {
+        List<Task> projectTasks = tasksByProject.get(projectName);
+        if (projectTasks == null) {
+            throw new IllegalArgumentException("Project does not exist: " + projectName);
+        }
+        return TaskLists.after(projectTasks, afterId, limit);
     }
 
     @Override
     // Optional for handling absence of task
     public Optional<Task> findTaskById(long id) {
-        for (List<Task> projectTasks : tasksByProject.values()) {
-            for (Task task : projectTasks) {
-                if (task.getId() == id) {
-                    return Optional.of(task);
-                }
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(tasksById.get(id));
+    }
+
+    @Override
+    public Optional<String> findProjectByTaskId(long id) {
+        return Optional.ofNullable(projectByTaskId.get(id));
+    }
+
+    @Override
+    public Optional<Task> setTaskDone(long id, boolean done) {
+        return compareAndSetTaskDone(id, ANY_VERSION, done).map(ConditionalUpdate::task);
+    }
+
+    @Override
+    public Optional<Task> setTaskDeadline(long id, LocalDate deadline) {
+        return compareAndSetTaskDeadline(id, ANY_VERSION, deadline).map(ConditionalUpdate::task);
+    }
+
+    @Override
+    public Optional<ConditionalUpdate> compareAndSetTaskDone(long id, long expectedVersion, boolean done) {
+        Task task = tasksById.get(id);
+        if (task == null) {
+            return Optional.empty();
+        }
+        if (!matches(task, expectedVersion)) {
+            return Optional.of(new ConditionalUpdate(task, false));
+        }
+        String projectName = projectByTaskId.get(id);
+        boolean wasDone = task.isDone();
+        task.setDone(done);
+        index.update(projectOrdinals.get(projectName), projectName, task, task.getDeadline());
+        stats.get(projectName).update(wasDone, task.getDeadline(), task);
+        changed(projectName);
+        return Optional.of(new ConditionalUpdate(task, true));
+    }
+
+    @Override
+    public Optional<ConditionalUpdate> compareAndSetTaskDeadline(long id, long expectedVersion, LocalDate deadline) {
+        Task task = tasksById.get(id);
+        if (task == null) {
+            return Optional.empty();
+        }
+        if (!matches(task, expectedVersion)) {
+            return Optional.of(new ConditionalUpdate(task, false));
+        }
+        String projectName = projectByTaskId.get(id);
+        LocalDate previous = task.getDeadline();
+        task.setDeadline(deadline);
+        index.update(projectOrdinals.get(projectName), projectName, task, previous);
+        stats.get(projectName).update(task.isDone(), previous, task);
+        changed(projectName);
+        return Optional.of(new ConditionalUpdate(task, true));
+    }
+
+    @Override
+    public SortedMap<LocalDate, Map<String, List<Task>>> getTasksByDeadline() {
+        return index.byDeadline();
+    }
+
+    @Override
+    public Map<String, List<Task>> getTasksWithoutDeadline() {
+        return index.withoutDeadline();
+    }
+
+    @Override
+    public Map<String, List<Task>> getTasksDueOn(LocalDate date) {
+        return index.dueOn(date);
+    }
+
+    @Override
+    public SortedMap<LocalDate, Integer> countTasksByDeadline(LocalDate from, LocalDate to) {
+        return index.countByDeadline(from, to);
+    }
+
+    @Override
+    public Map<String, TaskStats> getProjectStats(LocalDate today) {
+        Map<String, TaskStats> result = new LinkedHashMap<>();
+        stats.forEach((name, project) -> result.put(name, project.stats(today)));
+        return result;
+    }
+
+    @Override
+    public TaskQuery.Result query(TaskQuery query) {
+        if (query.project() == null) {
+            return index.query(query, -1, null);
+        }
+        List<Task> projectTasks = tasksByProject.get(query.project());
+        return projectTasks == null
+                ? new TaskQuery.Result(TaskQuery.Plan.PROJECT, List.of())
+                : index.query(query, projectOrdinals.get(query.project()), projectTasks);
+    }
+
+    private static boolean matches(Task task, long expectedVersion) {
+        return expectedVersion == ANY_VERSION || task.getVersion() == expectedVersion;
+    }
+
+    private void changed(String projectName) {
+        projectVersions.merge(projectName, 1L, Long::sum);
+        version++;
     }
 
     private long nextId(){
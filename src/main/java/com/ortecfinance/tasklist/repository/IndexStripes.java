@@ -0,0 +1,164 @@
+package com.ortecfinance.tasklist.repository;
+
+import com.ortecfinance.tasklist.model.Task;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+// A TaskIndex split by project into stripes, each behind its own read-write lock; all tasks of a project
+// are in one stripe. Writers lock only their project's stripe. The cross-project views read the stripes
+// one at a time, or all at once on the common fork-join pool, and merge the parts in project creation
+// order, so a long view only holds up the writers of the stripe it is reading, and only while it does.
+final class IndexStripes {
+
+    static final class Stripe {
+        private final TaskIndex index = new TaskIndex();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        <T> T write(Function<TaskIndex, T> change) {
+            lock.writeLock().lock();
+            try {
+                return change.apply(index);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        <T> T read(Function<TaskIndex, T> read) {
+            lock.readLock().lock();
+            try {
+                return read.apply(index);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final boolean parallel;
+    // set while the current thread holds every stripe through readingAll
+    private final ThreadLocal<Boolean> holdingAll = ThreadLocal.withInitial(() -> false);
+    // creation position of a project by name
+    private final ToIntFunction<String> ordinal;
+
+    IndexStripes(int count, boolean parallel, ToIntFunction<String> ordinal) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive: " + count);
+        }
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.parallel = parallel;
+        this.ordinal = ordinal;
+    }
+
+    int count() {
+        return stripes.length;
+    }
+
+    Stripe stripe(int i) {
+        return stripes[i];
+    }
+
+    // Runs read with every stripe's read lock held, taken in stripe order, so no writer is in flight
+    <T> T readingAll(Supplier<T> read) {
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+        }
+        holdingAll.set(true);
+        try {
+            return read.get();
+        } finally {
+            holdingAll.set(false);
+            for (Stripe stripe : stripes) {
+                stripe.lock.readLock().unlock();
+            }
+        }
+    }
+
+    SortedMap<LocalDate, Map<String, List<Task>>> byDeadline() {
+        SortedMap<LocalDate, List<Map<String, List<Task>>>> parts = new TreeMap<>();
+        for (SortedMap<LocalDate, Map<String, List<Task>>> stripe : readAll(TaskIndex::byDeadline)) {
+            stripe.forEach((date, tasks) -> parts.computeIfAbsent(date, d -> new ArrayList<>()).add(tasks));
+        }
+        SortedMap<LocalDate, Map<String, List<Task>>> result = new TreeMap<>();
+        parts.forEach((date, tasks) -> result.put(date, inProjectOrder(tasks)));
+        return result;
+    }
+
+    Map<String, List<Task>> withoutDeadline() {
+        return inProjectOrder(readAll(TaskIndex::withoutDeadline));
+    }
+
+    Map<String, List<Task>> dueOn(LocalDate date) {
+        return inProjectOrder(readAll(index -> index.dueOn(date)));
+    }
+
+    SortedMap<LocalDate, Integer> countByDeadline(LocalDate from, LocalDate to) {
+        SortedMap<LocalDate, Integer> counts = new TreeMap<>();
+        for (SortedMap<LocalDate, Integer> stripe : readAll(index -> index.countByDeadline(from, to))) {
+            stripe.forEach((date, count) -> counts.merge(date, count, Integer::sum));
+        }
+        return counts;
+    }
+
+    // A query without a project filter: every stripe plans and runs it on its own index, each returns at
+    // most limit tasks, and the merge keeps the first limit of those. The reported plan is the one picked
+    // by the stripe holding the most tasks.
+    TaskQuery.Result query(TaskQuery query) {
+        record Part(int size, TaskQuery.Result result) {}
+        List<Part> parts = readAll(index -> new Part(index.size(), index.query(query, -1, null)));
+        if (parts.size() == 1) {
+            return parts.get(0).result();
+        }
+
+        Comparator<TaskQuery.Match> byId = Comparator.comparingLong(match -> match.task().getId());
+        Comparator<TaskQuery.Match> order = query.sort() == TaskQuery.Sort.ID ? byId : Comparator
+                .comparing((TaskQuery.Match match) -> match.task().getDeadline(),
+                        Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparingInt(match -> ordinal.applyAsInt(match.project()))
+                .thenComparing(byId);
+        List<TaskQuery.Match> matches = new ArrayList<>();
+        Part largest = parts.get(0);
+        for (Part part : parts) {
+            matches.addAll(part.result().tasks());
+            if (part.size() > largest.size()) {
+                largest = part;
+            }
+        }
+        matches.sort(order);
+        return new TaskQuery.Result(largest.result().plan(),
+                List.copyOf(matches.subList(0, Math.min(matches.size(), query.limit()))));
+    }
+
+    // Results come back in stripe order
+    private <T> List<T> readAll(Function<TaskIndex, T> read) {
+        if (stripes.length == 1) {
+            return List.of(stripes[0].read(read));
+        }
+        // while this thread holds every stripe, pool threads would queue behind waiting writers
+        boolean inParallel = parallel && !holdingAll.get();
+        return (inParallel ? Arrays.stream(stripes).parallel() : Arrays.stream(stripes))
+                .map(stripe -> stripe.read(read))
+                .toList();
+    }
+
+    // Stripes hold disjoint projects, so merging their groups is only a matter of restoring creation order
+    private Map<String, List<Task>> inProjectOrder(List<Map<String, List<Task>>> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        List<Map.Entry<String, List<Task>>> entries = new ArrayList<>();
+        parts.forEach(part -> entries.addAll(part.entrySet()));
+        entries.sort(Comparator.comparingInt(entry -> ordinal.applyAsInt(entry.getKey())));
+        Map<String, List<Task>> result = new LinkedHashMap<>();
+        entries.forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+}
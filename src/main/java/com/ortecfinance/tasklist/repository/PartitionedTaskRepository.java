@@ -0,0 +1,22 @@
+package com.ortecfinance.tasklist.repository;
+
+// Thread-safe repository that hash-partitions projects over a fixed number of shards, one per core by
+// default (see StripedTaskRepository). A project's shard follows from its name alone. The cross-project
+// views are assembled by all shards at once on the common fork-join pool and then merged in project
+// creation order.
+public final class PartitionedTaskRepository extends StripedTaskRepository {
+
+    public PartitionedTaskRepository() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public PartitionedTaskRepository(int shardCount) {
+        super(shardCount, true);
+    }
+
+    @Override
+    int stripeOf(String projectName, int ordinal, int stripeCount) {
+        int hash = projectName.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), stripeCount);
+    }
+}
@@ -0,0 +1,61 @@
+package com.ortecfinance.tasklist.repository;
+
+import com.ortecfinance.tasklist.model.Task;
+
+import java.time.LocalDate;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Counters for one project, adjusted on every add and change so reading them never visits a task.
+// Open tasks with a deadline are also counted per date: the overdue count for a day is the sum of the
+// dates before it, worked out on the first read of that day and then kept current by the updates.
+final class ProjectStats {
+
+    private int total;
+    private int done;
+    private int noDeadline;
+    private final NavigableMap<LocalDate, Integer> openByDeadline = new TreeMap<>();
+    private LocalDate overdueAsOf;
+    private int overdue;
+
+    void add(Task task) {
+        add(task.isDone(), task.getDeadline());
+    }
+
+    void update(boolean wasDone, LocalDate previousDeadline, Task task) {
+        update(wasDone, previousDeadline, task.isDone(), task.getDeadline());
+    }
+
+    synchronized void add(boolean isDone, LocalDate deadline) {
+        count(isDone, deadline, 1);
+    }
+
+    synchronized void update(boolean wasDone, LocalDate previousDeadline, boolean isDone, LocalDate deadline) {
+        count(wasDone, previousDeadline, -1);
+        count(isDone, deadline, 1);
+    }
+
+    synchronized TaskStats stats(LocalDate today) {
+        if (!today.equals(overdueAsOf)) {
+            overdue = 0;
+            openByDeadline.headMap(today, false).values().forEach(count -> overdue += count);
+            overdueAsOf = today;
+        }
+        return new TaskStats(total - done, done, overdue, noDeadline);
+    }
+
+    private void count(boolean isDone, LocalDate deadline, int delta) {
+        total += delta;
+        if (isDone) {
+            done += delta;
+        }
+        if (deadline == null) {
+            noDeadline += delta;
+        } else if (!isDone) {
+            openByDeadline.merge(deadline, delta, (a, b) -> a + b == 0 ? null : a + b);
+            if (overdueAsOf != null && deadline.isBefore(overdueAsOf)) {
+                overdue += delta;
+            }
+        }
+    }
+}
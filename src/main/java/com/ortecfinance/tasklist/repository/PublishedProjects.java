@@ -0,0 +1,80 @@
+package com.ortecfinance.tasklist.repository;
+
+import com.ortecfinance.tasklist.model.Task;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Repository-wide version and snapshot for repositories whose projects publish their task lists on their
+// own. A write swaps in its project's list and then counts itself on a striped counter, so writers to
+// different projects share no lock and no compare-and-set, and none copies anything beyond its own
+// project. The snapshot is assembled from the projects' current lists on the first read after a write and
+// reused until the next one.
+//
+// Reads that span projects are validated like a sequence lock: the counter is read before and after, and
+// a read that overlapped a published write is retried. The counter only grows and a write counts itself
+// after its change is visible, so a read that passes has seen every write completed before it started,
+// and a later write it saw can't be missing an earlier one. A read overtaken OPTIMISTIC_READS times in a
+// row runs once more with every writer held off, so it always finishes.
+final class PublishedProjects {
+
+    // Runs a read while no write can be in flight
+    interface Exclusive {
+        <T> T run(Supplier<T> read);
+    }
+
+    // A cross-project read and the version it is consistent with
+    record Consistent<T>(long version, T value) {}
+
+    private static final int OPTIMISTIC_READS = 4;
+
+    private final Exclusive exclusive;
+    private final LongAdder version = new LongAdder();
+    private final AtomicReference<TaskSnapshot> latest = new AtomicReference<>(TaskSnapshot.EMPTY);
+
+    PublishedProjects(Exclusive exclusive) {
+        this.exclusive = exclusive;
+    }
+
+    // Called after the project's new list is visible, before the writer lets go of its lock
+    void published() {
+        version.increment();
+    }
+
+    long version() {
+        return version.sum();
+    }
+
+    <T> Consistent<T> read(Supplier<T> read) {
+        for (int attempt = 0; attempt < OPTIMISTIC_READS; attempt++) {
+            long before = version();
+            T value = read.get();
+            if (version() == before) {
+                return new Consistent<>(before, value);
+            }
+        }
+        return exclusive.run(() -> new Consistent<>(version(), read.get()));
+    }
+
+    // projects hands each project's name and current list to the consumer, in creation order
+    TaskSnapshot snapshot(Consumer<BiConsumer<String, List<Task>>> projects) {
+        TaskSnapshot cached = latest.get();
+        if (cached.version() >= version()) {
+            return cached;
+        }
+        Consistent<Map<String, List<Task>>> assembled = read(() -> {
+            Map<String, List<Task>> lists = new LinkedHashMap<>();
+            projects.accept(lists::put);
+            return lists;
+        });
+        TaskSnapshot built = new TaskSnapshot(assembled.version(), assembled.value());
+        // readers racing to rebuild keep whichever is newer
+        return latest.accumulateAndGet(built, (a, b) -> a.version() >= b.version() ? a : b);
+    }
+}
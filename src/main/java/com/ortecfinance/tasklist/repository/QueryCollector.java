@@ -0,0 +1,51 @@
+package com.ortecfinance.tasklist.repository;
+
+import com.ortecfinance.tasklist.model.Task;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Applies a query's filters to the candidates of one access path and keeps the first limit tasks in the
+// requested order. When the path already yields that order the walk stops at the limit; otherwise all
+// matches are collected and sorted at the end.
+final class QueryCollector {
+
+    private static final Comparator<Row> BY_ID = Comparator.comparingLong(row -> row.task().getId());
+    private static final Comparator<Row> BY_DEADLINE = Comparator
+            .comparing((Row row) -> row.task().getDeadline(), Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingInt(Row::projectOrdinal)
+            .thenComparing(BY_ID);
+
+    private final TaskQuery query;
+    private final TaskQuery.Plan plan;
+    private final boolean ordered;
+    private final List<Row> rows = new ArrayList<>();
+
+    QueryCollector(TaskQuery query, TaskQuery.Plan plan, boolean ordered) {
+        this.query = query;
+        this.plan = plan;
+        this.ordered = ordered;
+    }
+
+    // Returns false once an ordered walk has found enough tasks
+    boolean offer(int projectOrdinal, String projectName, Task task) {
+        if (query.matches(projectName, task)) {
+            rows.add(new Row(projectOrdinal, projectName, task));
+        }
+        return !ordered || rows.size() < query.limit();
+    }
+
+    TaskQuery.Result result() {
+        if (!ordered) {
+            rows.sort(query.sort() == TaskQuery.Sort.DEADLINE ? BY_DEADLINE : BY_ID);
+        }
+        List<TaskQuery.Match> matches = new ArrayList<>(Math.min(rows.size(), query.limit()));
+        for (int i = 0; i < rows.size() && i < query.limit(); i++) {
+            matches.add(new TaskQuery.Match(rows.get(i).projectName(), rows.get(i).task()));
+        }
+        return new TaskQuery.Result(plan, matches);
+    }
+
+    private record Row(int projectOrdinal, String projectName, Task task) {}
+}
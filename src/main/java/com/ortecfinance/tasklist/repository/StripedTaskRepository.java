@@ -0,0 +1,373 @@
+package com.ortecfinance.tasklist.repository;
+
+import com.ortecfinance.tasklist.model.Task;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+// Shared implementation of the thread-safe repositories that split projects over stripes, each with its
+// own read-write lock and its own TaskIndex (see IndexStripes). A stripe's write lock covers everything a
+// write touches: its projects' task lists and their index entries. Writers to different stripes share no
+// lock; what they share is the ID counter and a striped version counter, neither of which makes them wait.
+//
+// Stored tasks are never modified in place. A write replaces the task with an updated copy and swaps in
+// a new version of the project's task list; the repository-wide snapshot is assembled from those lists on
+// the next read (see PublishedProjects). Readers of a single project or task only follow volatile
+// references, so they never lock and never see a half-applied write. Reads across projects, the snapshot
+// and the index views, are validated against the version and retried if a write was published meanwhile,
+// so each is point-in-time.
+//
+// Subclasses decide how many stripes there are, which stripe a project goes to and whether the
+// cross-project views read the stripes in parallel.
+abstract sealed class StripedTaskRepository implements TaskRepository
+        permits ConcurrentTaskRepository, PartitionedTaskRepository {
+
+    private final IndexStripes stripes;
+    private final Map<String, Project> projects = new ConcurrentHashMap<>();
+    // creation order of projects; written once per project, read on every view
+    private final List<Project> projectOrder = new CopyOnWriteArrayList<>();
+    private final Lock projectCreationLock = new ReentrantLock();
+    private final Map<Long, Project> projectByTaskId = new ConcurrentHashMap<>();
+    private final AtomicLong lastId = new AtomicLong();
+    private final PublishedProjects published;
+    private final DescriptionPool descriptions = new DescriptionPool();
+
+    StripedTaskRepository(int stripeCount, boolean parallelViews) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive: " + stripeCount);
+        }
+        stripes = new IndexStripes(stripeCount, parallelViews, name -> projects.get(name).ordinal);
+        published = new PublishedProjects(stripes::readingAll);
+    }
+
+    // The stripe, out of stripeCount, for a new project; ordinal is its position in creation order
+    abstract int stripeOf(String projectName, int ordinal, int stripeCount);
+
+    @Override
+    public void addProject(String name) {
+        if (projects.containsKey(name)) {
+            return;
+        }
+        projectCreationLock.lock();
+        try {
+            if (!projects.containsKey(name)) {
+                int ordinal = projectOrder.size();
+                IndexStripes.Stripe stripe = stripes.stripe(stripeOf(name, ordinal, stripes.count()));
+                Project project = new Project(name, ordinal, stripe);
+                projectOrder.add(project);
+                projects.put(name, project);
+                publish(project);
+            }
+        } finally {
+            projectCreationLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean hasProject(String name) {
+        return projects.containsKey(name);
+    }
+
+    @Override
+    public Task addTask(String projectName, String description) {
+        Project project = project(projectName);
+        return project.stripe.write(index -> {
+            // IDs are taken under the stripe lock so each project's list stays in ID order
+            Task task = new Task(lastId.incrementAndGet(), descriptions.intern(description), false);
+            appendAll(index, project, List.of(task));
+            return task;
+        });
+    }
+
+    @Override
+    public void restoreTask(String projectName, Task task) {
+        restoreTasks(projectName, List.of(task));
+    }
+
+    @Override
+    public void restoreTasks(String projectName, List<Task> tasks) {
+        Project project = project(projectName);
+        project.stripe.write(index -> {
+            List<Task> copies = new ArrayList<>(tasks.size());
+            for (Task task : tasks) {
+                copies.add(pooledCopy(task));
+                lastId.accumulateAndGet(task.getId(), Math::max);
+            }
+            appendAll(index, project, copies);
+            return null;
+        });
+    }
+
+    @Override
+    // Takes each stripe's lock once and publishes each project once, however many tasks it gets
+    public List<Optional<Task>> addTasks(List<NewTask> tasks) {
+        List<Optional<Task>> results = new ArrayList<>(Collections.nCopies(tasks.size(), Optional.empty()));
+        Map<IndexStripes.Stripe, Map<Project, List<Integer>>> itemsByStripe = new LinkedHashMap<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Project project = projects.get(tasks.get(i).projectName());
+            if (project != null) {
+                itemsByStripe.computeIfAbsent(project.stripe, s -> new LinkedHashMap<>())
+                        .computeIfAbsent(project, p -> new ArrayList<>()).add(i);
+            }
+        }
+        itemsByStripe.forEach((stripe, itemsByProject) -> stripe.write(index -> {
+            itemsByProject.forEach((project, items) -> {
+                List<Task> added = new ArrayList<>(items.size());
+                for (int item : items) {
+                    Task task = new Task(lastId.incrementAndGet(),
+                            descriptions.intern(tasks.get(item).description()), false);
+                    added.add(task);
+                    results.set(item, Optional.of(task));
+                }
+                appendAll(index, project, added);
+            });
+            return null;
+        }));
+        return results;
+    }
+
+    @Override
+    public List<Optional<Task>> setTasksDone(List<DoneChange> changes) {
+        return updateAll(changes, DoneChange::taskId, (task, change) -> task.setDone(change.done()));
+    }
+
+    @Override
+    public List<Optional<Task>> setTaskDeadlines(List<DeadlineChange> changes) {
+        return updateAll(changes, DeadlineChange::taskId, (task, change) -> task.setDeadline(change.deadline()));
+    }
+
+    @Override
+    public Map<String, List<Task>> getAllProjectsWithTasks() {
+        return snapshot().projects();
+    }
+
+    @Override
+    public TaskSnapshot snapshot() {
+        return published.snapshot(projects ->
+                projectOrder.forEach(project -> projects.accept(project.name, project.tasks)));
+    }
+
+    @Override
+    public long version() {
+        return published.version();
+    }
+
+    @Override
+    public <T> T consistentRead(Supplier<T> read) {
+        return published.read(read).value();
+    }
+
+    @Override
+    public long projectVersion(String projectName) {
+        return project(projectName).version;
+    }
+
+    @Override
+    public List<String> getProjectNames() {
+        return projectOrder.stream().map(project -> project.name).toList();
+    }
+
+    @Override
+    public List<Task> getTasks(String projectName, long afterId, int limit) {
+        return TaskLists.after(project(projectName).tasks, afterId, limit);
+    }
+
+    @Override
+    public Optional<Task> findTaskById(long id) {
+        Project project = projectByTaskId.get(id);
+        if (project == null) {
+            return Optional.empty();
+        }
+        TaskVector tasks = project.tasks;
+        int index = TaskLists.indexOf(tasks, id);
+        return index < 0 ? Optional.empty() : Optional.of(tasks.get(index));
+    }
+
+    @Override
+    public Optional<String> findProjectByTaskId(long id) {
+        return Optional.ofNullable(projectByTaskId.get(id)).map(project -> project.name);
+    }
+
+    @Override
+    public Optional<Task> setTaskDone(long id, boolean done) {
+        return update(id, ANY_VERSION, task -> task.setDone(done)).map(ConditionalUpdate::task);
+    }
+
+    @Override
+    public Optional<Task> setTaskDeadline(long id, LocalDate deadline) {
+        return update(id, ANY_VERSION, task -> task.setDeadline(deadline)).map(ConditionalUpdate::task);
+    }
+
+    @Override
+    public Optional<ConditionalUpdate> compareAndSetTaskDone(long id, long expectedVersion, boolean done) {
+        return update(id, expectedVersion, task -> task.setDone(done));
+    }
+
+    @Override
+    public Optional<ConditionalUpdate> compareAndSetTaskDeadline(long id, long expectedVersion, LocalDate deadline) {
+        return update(id, expectedVersion, task -> task.setDeadline(deadline));
+    }
+
+    @Override
+    public SortedMap<LocalDate, Map<String, List<Task>>> getTasksByDeadline() {
+        return consistentRead(stripes::byDeadline);
+    }
+
+    @Override
+    public Map<String, List<Task>> getTasksWithoutDeadline() {
+        return consistentRead(stripes::withoutDeadline);
+    }
+
+    @Override
+    public Map<String, List<Task>> getTasksDueOn(LocalDate date) {
+        return consistentRead(() -> stripes.dueOn(date));
+    }
+
+    @Override
+    public SortedMap<LocalDate, Integer> countTasksByDeadline(LocalDate from, LocalDate to) {
+        return consistentRead(() -> stripes.countByDeadline(from, to));
+    }
+
+    @Override
+    public Map<String, TaskStats> getProjectStats(LocalDate today) {
+        return consistentRead(() -> {
+            Map<String, TaskStats> result = new LinkedHashMap<>();
+            for (Project project : projectOrder) {
+                result.put(project.name, project.stats.stats(today));
+            }
+            return result;
+        });
+    }
+
+    @Override
+    // A project filter goes to the one stripe that holds the project; otherwise every stripe runs the query
+    // and the results are merged (see IndexStripes.query)
+    public TaskQuery.Result query(TaskQuery query) {
+        if (query.project() != null) {
+            Project project = projects.get(query.project());
+            if (project == null) {
+                return new TaskQuery.Result(TaskQuery.Plan.PROJECT, List.of());
+            }
+            return project.stripe.read(index -> index.query(query, project.ordinal, project.tasks));
+        }
+        return consistentRead(() -> stripes.query(query));
+    }
+
+    // Applies a change to a fresh copy of the task under the owning stripe's lock, then swaps it in;
+    // a task that has moved past expectedVersion is returned as it is
+    private Optional<ConditionalUpdate> update(long id, long expectedVersion, Consumer<Task> change) {
+        Project project = projectByTaskId.get(id);
+        if (project == null) {
+            return Optional.empty();
+        }
+        return project.stripe.write(index -> {
+            int position = TaskLists.indexOf(project.tasks, id);
+            Task current = project.tasks.get(position);
+            if (expectedVersion != ANY_VERSION && current.getVersion() != expectedVersion) {
+                return Optional.of(new ConditionalUpdate(current, false));
+            }
+            Task updated = current.copy();
+            change.accept(updated);
+
+            project.tasks = project.tasks.replace(position, updated);
+            index.update(project.ordinal, project.name, updated, current.getDeadline());
+            project.stats.update(current.isDone(), current.getDeadline(), updated);
+            publish(project);
+            return Optional.of(new ConditionalUpdate(updated, true));
+        });
+    }
+
+    // Batch form of update: changes are grouped per stripe and per project, each stripe is locked once
+    // and each project is published once
+    private <C> List<Optional<Task>> updateAll(List<C> changes, ToLongFunction<C> taskId, BiConsumer<Task, C> apply) {
+        List<Optional<Task>> results = new ArrayList<>(Collections.nCopies(changes.size(), Optional.empty()));
+        Map<IndexStripes.Stripe, Map<Project, List<Integer>>> itemsByStripe = new LinkedHashMap<>();
+        for (int i = 0; i < changes.size(); i++) {
+            Project project = projectByTaskId.get(taskId.applyAsLong(changes.get(i)));
+            if (project != null) {
+                itemsByStripe.computeIfAbsent(project.stripe, s -> new LinkedHashMap<>())
+                        .computeIfAbsent(project, p -> new ArrayList<>()).add(i);
+            }
+        }
+        itemsByStripe.forEach((stripe, itemsByProject) -> stripe.write(index -> {
+            itemsByProject.forEach((project, items) -> {
+                TaskVector tasks = project.tasks;
+                for (int item : items) {
+                    long id = taskId.applyAsLong(changes.get(item));
+                    int position = TaskLists.indexOf(tasks, id);
+                    Task current = tasks.get(position);
+                    Task copy = current.copy();
+                    apply.accept(copy, changes.get(item));
+                    tasks = tasks.replace(position, copy);
+                    index.update(project.ordinal, project.name, copy, current.getDeadline());
+                    project.stats.update(current.isDone(), current.getDeadline(), copy);
+                    results.set(item, Optional.of(copy));
+                }
+                project.tasks = tasks;
+                publish(project);
+            });
+            return null;
+        }));
+        return results;
+    }
+
+    // Called with the stripe lock held; tasks must come after the project's current ones in ID order
+    private void appendAll(TaskIndex index, Project project, List<Task> tasks) {
+        TaskVector appended = project.tasks;
+        for (Task task : tasks) {
+            appended = appended.append(task);
+            index.add(project.ordinal, project.name, task);
+            project.stats.add(task);
+        }
+        project.tasks = appended;
+        // routed only once the task is in its project, so a lookup by ID never misses it
+        tasks.forEach(task -> projectByTaskId.put(task.getId(), project));
+        publish(project);
+    }
+
+    // stored tasks are treated as immutable, so keep a private copy with a pooled description
+    private Task pooledCopy(Task task) {
+        return new Task(task.getId(), descriptions.intern(task.getDescription()), task.isDone(),
+                task.getDeadline(), task.getVersion());
+    }
+
+    private Project project(String projectName) {
+        Project project = projects.get(projectName);
+        if (project == null) {
+            throw new IllegalArgumentException("Project does not exist: " + projectName);
+        }
+        return project;
+    }
+
+    // Called with the stripe lock held, after the project's new list is in place
+    private void publish(Project project) {
+        project.version++;
+        published.published();
+    }
+
+    private static final class Project {
+        private final String name;
+        private final int ordinal;
+        private final IndexStripes.Stripe stripe;
+        private final ProjectStats stats = new ProjectStats();
+        // replaced, never modified, on every write
+        private volatile TaskVector tasks = TaskVector.EMPTY;
+        // only written with the stripe lock held
+        private volatile long version;
+
+        private Project(String name, int ordinal, IndexStripes.Stripe stripe) {
+            this.name = name;
+            this.ordinal = ordinal;
+            this.stripe = stripe;
+        }
+    }
+}
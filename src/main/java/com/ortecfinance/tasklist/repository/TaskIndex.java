@@ -0,0 +1,241 @@
+package com.ortecfinance.tasklist.repository;
+
+import com.ortecfinance.tasklist.model.Task;
+
+import java.time.LocalDate;
+import java.util.*;
+
+// Secondary indexes over the stored tasks: tasks ordered by deadline (then project creation order,
+// then task ID), done and open bitmaps and a direct-address table from task ID to task, all indexed by ID.
+// Kept current by the repositories on every add and update, so the deadline views and queries only
+// touch candidate tasks. Not thread-safe; callers guard it.
+final class TaskIndex {
+
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final NavigableMap<LocalDate, NavigableMap<Key, Entry>> byDeadline = new TreeMap<>();
+    private final NavigableMap<Key, Entry> noDeadline = new TreeMap<>();
+    // IDs are handed out sequentially, so both stay dense. The table is paged: an index that holds only
+    // some projects' tasks, like one stripe or shard of a repository, only allocates the pages it uses.
+    private Entry[][] byId = new Entry[16][];
+    // every ID in this index is in exactly one of the two, so a status walk only visits its own tasks
+    private final BitSet done = new BitSet();
+    private final BitSet open = new BitSet();
+    private int size;
+    private int doneCount;
+
+    void add(int projectOrdinal, String projectName, Task task) {
+        int id = slot(task);
+        Entry entry = new Entry(projectOrdinal, projectName, task);
+        bucket(task.getDeadline(), true).put(new Key(projectOrdinal, task.getId()), entry);
+        if (put(id, entry) == null) {
+            size++;
+        }
+        setDone(id, task.isDone());
+    }
+
+    // Re-files a task after a change; the task may be a new object carrying the new state
+    void update(int projectOrdinal, String projectName, Task task, LocalDate previousDeadline) {
+        int id = slot(task);
+        Key key = new Key(projectOrdinal, task.getId());
+        if (!Objects.equals(previousDeadline, task.getDeadline())) {
+            NavigableMap<Key, Entry> old = bucket(previousDeadline, false);
+            if (old != null) {
+                old.remove(key);
+                if (old.isEmpty() && previousDeadline != null) {
+                    byDeadline.remove(previousDeadline);
+                }
+            }
+        }
+        Entry entry = new Entry(projectOrdinal, projectName, task);
+        bucket(task.getDeadline(), true).put(key, entry);
+        put(id, entry);
+        setDone(id, task.isDone());
+    }
+
+    int size() {
+        return size;
+    }
+
+    SortedMap<LocalDate, Map<String, List<Task>>> byDeadline() {
+        SortedMap<LocalDate, Map<String, List<Task>>> result = new TreeMap<>();
+        for (Map.Entry<LocalDate, NavigableMap<Key, Entry>> date : byDeadline.entrySet()) {
+            result.put(date.getKey(), groupByProject(date.getValue().values()));
+        }
+        return result;
+    }
+
+    Map<String, List<Task>> withoutDeadline() {
+        return groupByProject(noDeadline.values());
+    }
+
+    Map<String, List<Task>> dueOn(LocalDate date) {
+        NavigableMap<Key, Entry> bucket = byDeadline.get(date);
+        return bucket == null ? new LinkedHashMap<>() : groupByProject(bucket.values());
+    }
+
+    // Bucket sizes only, the tasks themselves aren't visited
+    SortedMap<LocalDate, Integer> countByDeadline(LocalDate from, LocalDate to) {
+        SortedMap<LocalDate, Integer> counts = new TreeMap<>();
+        byDeadline.subMap(from, true, to, true).forEach((date, bucket) -> counts.put(date, bucket.size()));
+        return counts;
+    }
+
+    // Plans the query over whichever candidate set is smallest: the project's tasks (passed in by the
+    // repository, null without a project filter), the done or open tasks, the deadline range, or every
+    // task. Each cost is the number of tasks the path visits. On a tie the path that already yields the requested order wins, since it can stop at the limit.
+    TaskQuery.Result query(TaskQuery query, int projectOrdinal, List<Task> projectTasks) {
+        boolean byDeadlineOrder = query.sort() == TaskQuery.Sort.DEADLINE;
+        TaskQuery.Plan plan = TaskQuery.Plan.FULL_SCAN;
+        long cost = size;
+        if (byDeadlineOrder || query.hasDeadlineRange()) {
+            long inRange = query.hasDeadlineRange() ? countInRange(query) : size;
+            if (inRange < cost || inRange == cost && byDeadlineOrder) {
+                plan = TaskQuery.Plan.DEADLINE_RANGE;
+                cost = inRange;
+            }
+        }
+        if (query.done() != null) {
+            long status = query.done() ? doneCount : size - doneCount;
+            if (status < cost || status == cost && !byDeadlineOrder) {
+                plan = TaskQuery.Plan.DONE_STATUS;
+                cost = status;
+            }
+        }
+        if (projectTasks != null && (projectTasks.size() < cost || projectTasks.size() == cost && !byDeadlineOrder)) {
+            plan = TaskQuery.Plan.PROJECT;
+        }
+
+        QueryCollector collector = new QueryCollector(query, plan,
+                byDeadlineOrder == (plan == TaskQuery.Plan.DEADLINE_RANGE));
+        switch (plan) {
+            case PROJECT -> {
+                for (Task task : projectTasks) {
+                    if (!collector.offer(projectOrdinal, query.project(), task)) {
+                        break;
+                    }
+                }
+            }
+            case DONE_STATUS -> {
+                BitSet candidates = query.done() ? done : open;
+                for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+                    Entry entry = entry(id);
+                    if (!collector.offer(entry.projectOrdinal(), entry.projectName(), entry.task())) {
+                        break;
+                    }
+                }
+            }
+            case DEADLINE_RANGE -> walkDeadlines(query, collector);
+            case FULL_SCAN -> fullScan(collector);
+        }
+        return collector.result();
+    }
+
+    // ID order, skipping pages that were never allocated
+    private void fullScan(QueryCollector collector) {
+        for (Entry[] page : byId) {
+            if (page == null) {
+                continue;
+            }
+            for (Entry entry : page) {
+                if (entry != null && !collector.offer(entry.projectOrdinal(), entry.projectName(), entry.task())) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void walkDeadlines(TaskQuery query, QueryCollector collector) {
+        List<Collection<Entry>> buckets = new ArrayList<>(inRange(query).values()
+                .stream().map(Map::values).toList());
+        if (!query.hasDeadlineRange()) {
+            buckets.add(noDeadline.values());
+        }
+        for (Collection<Entry> bucket : buckets) {
+            for (Entry entry : bucket) {
+                if (!collector.offer(entry.projectOrdinal(), entry.projectName(), entry.task())) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Size of every bucket in the range, one lookup per date rather than per task
+    private long countInRange(TaskQuery query) {
+        long count = 0;
+        for (NavigableMap<Key, Entry> bucket : inRange(query).values()) {
+            count += bucket.size();
+        }
+        return count;
+    }
+
+    private NavigableMap<LocalDate, NavigableMap<Key, Entry>> inRange(TaskQuery query) {
+        NavigableMap<LocalDate, NavigableMap<Key, Entry>> range = byDeadline;
+        if (query.deadlineFrom() != null) {
+            range = range.tailMap(query.deadlineFrom(), true);
+        }
+        if (query.deadlineTo() != null) {
+            range = range.headMap(query.deadlineTo(), true);
+        }
+        return range;
+    }
+
+    private Entry entry(int id) {
+        int page = id >>> PAGE_BITS;
+        return page < byId.length && byId[page] != null ? byId[page][id & (PAGE_SIZE - 1)] : null;
+    }
+
+    // Returns the entry it replaced, if any
+    private Entry put(int id, Entry entry) {
+        int page = id >>> PAGE_BITS;
+        if (page >= byId.length) {
+            byId = Arrays.copyOf(byId, Math.max(page + 1, byId.length * 2));
+        }
+        if (byId[page] == null) {
+            byId[page] = new Entry[PAGE_SIZE];
+        }
+        Entry previous = byId[page][id & (PAGE_SIZE - 1)];
+        byId[page][id & (PAGE_SIZE - 1)] = entry;
+        return previous;
+    }
+
+    private void setDone(int id, boolean isDone) {
+        if (done.get(id) != isDone) {
+            doneCount += isDone ? 1 : -1;
+        }
+        done.set(id, isDone);
+        open.set(id, !isDone);
+    }
+
+    // The table and bitmaps are int-indexed; an ID beyond that fails loudly rather than wrapping
+    private static int slot(Task task) {
+        return Math.toIntExact(task.getId());
+    }
+
+    private NavigableMap<Key, Entry> bucket(LocalDate deadline, boolean create) {
+        if (deadline == null) {
+            return noDeadline;
+        }
+        return create ? byDeadline.computeIfAbsent(deadline, d -> new TreeMap<>()) : byDeadline.get(deadline);
+    }
+
+    // entries arrive ordered by project, so a project's tasks are contiguous
+    private static Map<String, List<Task>> groupByProject(Collection<Entry> entries) {
+        Map<String, List<Task>> result = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            result.computeIfAbsent(entry.projectName(), k -> new ArrayList<>()).add(entry.task());
+        }
+        return result;
+    }
+
+    private record Key(int projectOrdinal, long taskId) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int byProject = Integer.compare(projectOrdinal, other.projectOrdinal);
+            return byProject != 0 ? byProject : Long.compare(taskId, other.taskId);
+        }
+    }
+
+    private record Entry(int projectOrdinal, String projectName, Task task) {}
+}
@@ -0,0 +1,37 @@
+package com.ortecfinance.tasklist.repository;
+
+import com.ortecfinance.tasklist.model.Task;
+
+import java.util.List;
+
+// Helpers for project task lists, which are always kept in ID order
+final class TaskLists {
+
+    private TaskLists() {
+    }
+
+    static List<Task> after(List<Task> tasks, long afterId, int limit) {
+        int start = firstIndexAfter(tasks, afterId);
+        return List.copyOf(tasks.subList(start, Math.min(tasks.size(), start + Math.max(limit, 0))));
+    }
+
+    static int indexOf(List<Task> tasks, long id) {
+        int index = firstIndexAfter(tasks, id - 1);
+        return index < tasks.size() && tasks.get(index).getId() == id ? index : -1;
+    }
+
+    // binary search for the first task with an ID greater than afterId
+    private static int firstIndexAfter(List<Task> tasks, long afterId) {
+        int low = 0;
+        int high = tasks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tasks.get(mid).getId() <= afterId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,52 @@
+package com.ortecfinance.tasklist.repository;
+
+import com.ortecfinance.tasklist.model.Task;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+
+// Filters for TaskRepository.query; a null field doesn't filter. The deadline range is inclusive on both
+// ends and only matches tasks that have a deadline. DEADLINE sorts by deadline, then project creation
+// order, then ID, with tasks without a deadline last.
+public record TaskQuery(String project, Boolean done, LocalDate deadlineFrom, LocalDate deadlineTo,
+                        Sort sort, int limit) {
+
+    public enum Sort { ID, DEADLINE }
+
+    // The access path the repository picked: the smallest candidate set among the filters it can index
+    public enum Plan { PROJECT, DONE_STATUS, DEADLINE_RANGE, FULL_SCAN }
+
+    public record Match(String project, Task task) {}
+
+    public record Result(Plan plan, List<Match> tasks) {}
+
+    public TaskQuery {
+        sort = Objects.requireNonNullElse(sort, Sort.ID);
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Query limit must be positive.");
+        }
+        if (deadlineFrom != null && deadlineTo != null && deadlineFrom.isAfter(deadlineTo)) {
+            throw new IllegalArgumentException("The deadline range ends before it starts.");
+        }
+    }
+
+    boolean hasDeadlineRange() {
+        return deadlineFrom != null || deadlineTo != null;
+    }
+
+    boolean matches(String projectName, Task task) {
+        return (project == null || project.equals(projectName))
+                && (done == null || done == task.isDone())
+                && matchesDeadline(task.getDeadline());
+    }
+
+    boolean matchesDeadline(LocalDate deadline) {
+        if (!hasDeadlineRange()) {
+            return true;
+        }
+        return deadline != null
+                && (deadlineFrom == null || !deadline.isBefore(deadlineFrom))
+                && (deadlineTo == null || !deadline.isAfter(deadlineTo));
+    }
+}
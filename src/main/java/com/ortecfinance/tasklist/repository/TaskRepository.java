@@ -1,9 +1,14 @@
 package com.ortecfinance.tasklist.repository;
 
 import com.ortecfinance.tasklist.model.Task;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.function.Supplier;
 
 
 public interface TaskRepository {
@@ -13,7 +18,123 @@ public interface TaskRepository {
 
     Task addTask(String projectName, String description);
 
+    // Re-inserts a task with its original ID and state, e.g. when replaying a journal.
+    // Tasks of one project must be restored in ID order; later IDs continue after the highest restored one.
+    void restoreTask(String projectName, Task task);
+
+    // Bulk form of restoreTask used when loading snapshots; implementations may apply it in one step
+    default void restoreTasks(String projectName, List<Task> tasks) {
+        for (Task task : tasks) {
+            restoreTask(projectName, task);
+        }
+    }
+
+    // Read-only; callers must not modify the returned map or lists
     Map<String, List<Task>> getAllProjectsWithTasks();
 
+    // Immutable, point-in-time copy of all projects and tasks: a write it contains comes with every write
+    // that completed before that one started
+    TaskSnapshot snapshot();
+
+    // Increases with every mutation; a snapshot taken afterwards has at least this version. Cheap, no copy is made
+    long version();
+
+    // Increases with every change to one project or its tasks
+    long projectVersion(String projectName);
+
+    // Runs a read made of several calls on this repository so that together they see one point in time.
+    // The cross-project views are each point-in-time already; this is for combining them. The default
+    // retries until no write lands while the read runs; implementations with locks can hold off writers.
+    default <T> T consistentRead(Supplier<T> read) {
+        while (true) {
+            long before = version();
+            T value = read.get();
+            if (version() == before) {
+                return value;
+            }
+        }
+    }
+
+    // Project names in creation order; a project's position never changes
+    List<String> getProjectNames();
+
+    // Up to limit tasks of one project with an ID greater than afterId, in ID order
+    List<Task> getTasks(String projectName, long afterId, int limit);
+
     Optional<Task> findTaskById(long id);
+
+    Optional<String> findProjectByTaskId(long id);
+
+    // Updates go through the repository so it can keep its indexes current
+    Optional<Task> setTaskDone(long id, boolean done);
+
+    Optional<Task> setTaskDeadline(long id, LocalDate deadline);
+
+    // Compare-and-set forms: the change is applied only while the task is still at expectedVersion, checked
+    // under the same lock as the unconditional write, the write lock of the project's stripe on the
+    // concurrent and partitioned stores. Empty if the task doesn't exist; otherwise whether the change was
+    // applied and the stored task after the call, on a mismatch the current one, unchanged. Stores that
+    // return false from supportsConditionalUpdates throw UnsupportedOperationException instead.
+    Optional<ConditionalUpdate> compareAndSetTaskDone(long id, long expectedVersion, boolean done);
+
+    Optional<ConditionalUpdate> compareAndSetTaskDeadline(long id, long expectedVersion, LocalDate deadline);
+
+    // Matches every version; what the unconditional updates use
+    long ANY_VERSION = -1;
+
+    default boolean supportsConditionalUpdates() {
+        return true;
+    }
+
+    // Bulk writes: results line up with the input and are empty where the project or task doesn't exist.
+    // The defaults apply items one by one; implementations apply a batch in one step per lock.
+    default List<Optional<Task>> addTasks(List<NewTask> tasks) {
+        List<Optional<Task>> results = new ArrayList<>(tasks.size());
+        for (NewTask task : tasks) {
+            results.add(hasProject(task.projectName())
+                    ? Optional.of(addTask(task.projectName(), task.description()))
+                    : Optional.empty());
+        }
+        return results;
+    }
+
+    default List<Optional<Task>> setTasksDone(List<DoneChange> changes) {
+        List<Optional<Task>> results = new ArrayList<>(changes.size());
+        for (DoneChange change : changes) {
+            results.add(setTaskDone(change.taskId(), change.done()));
+        }
+        return results;
+    }
+
+    default List<Optional<Task>> setTaskDeadlines(List<DeadlineChange> changes) {
+        List<Optional<Task>> results = new ArrayList<>(changes.size());
+        for (DeadlineChange change : changes) {
+            results.add(setTaskDeadline(change.taskId(), change.deadline()));
+        }
+        return results;
+    }
+
+    // Deadline views: date -> project -> tasks, in project order
+    SortedMap<LocalDate, Map<String, List<Task>>> getTasksByDeadline();
+
+    Map<String, List<Task>> getTasksWithoutDeadline();
+
+    Map<String, List<Task>> getTasksDueOn(LocalDate date);
+
+    // Number of tasks due on each date of the inclusive range that has any
+    SortedMap<LocalDate, Integer> countTasksByDeadline(LocalDate from, LocalDate to);
+
+    // Counters per project in creation order, kept current on every write; no task is visited
+    Map<String, TaskStats> getProjectStats(LocalDate today);
+
+    // Tasks matching every filter of the query, planned over the repository's indexes
+    TaskQuery.Result query(TaskQuery query);
+
+    record NewTask(String projectName, String description) {}
+
+    record DoneChange(long taskId, boolean done) {}
+
+    record DeadlineChange(long taskId, LocalDate deadline) {}
+
+    record ConditionalUpdate(Task task, boolean applied) {}
 }
@@ -0,0 +1,18 @@
+package com.ortecfinance.tasklist.repository;
+
+import com.ortecfinance.tasklist.model.Task;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Immutable view of a repository, including every write up to its version. The version increases with
+// every mutation; tasks in a snapshot are never changed afterwards.
+public record TaskSnapshot(long version, Map<String, List<Task>> projects) {
+
+    public static final TaskSnapshot EMPTY = new TaskSnapshot(0, Map.of());
+
+    public TaskSnapshot {
+        projects = Collections.unmodifiableMap(projects);
+    }
+}
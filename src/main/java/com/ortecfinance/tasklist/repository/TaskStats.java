@@ -0,0 +1,5 @@
+package com.ortecfinance.tasklist.repository;
+
+// Task counts of one project. Overdue counts open tasks with a deadline before today;
+// noDeadline counts every task without a deadline, done or not.
+public record TaskStats(int open, int done, int overdue, int noDeadline) {}
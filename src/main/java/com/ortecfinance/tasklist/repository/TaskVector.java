@@ -0,0 +1,61 @@
+package com.ortecfinance.tasklist.repository;
+
+import com.ortecfinance.tasklist.model.Task;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+// Immutable task list that shares storage between versions: appending writes into
+// a free slot no older version can see, replacing copies only one chunk and the spine.
+// Only the latest version may be appended to, so writers must hold the project's write lock.
+final class TaskVector extends AbstractList<Task> implements RandomAccess {
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    static final TaskVector EMPTY = new TaskVector(new Task[0][], 0);
+
+    private final Task[][] chunks;
+    private final int size;
+
+    private TaskVector(Task[][] chunks, int size) {
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    @Override
+    public Task get(int index) {
+        Objects.checkIndex(index, size);
+        return chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    TaskVector append(Task task) {
+        int chunk = size >>> CHUNK_BITS;
+        Task[][] spine = chunks;
+        if (chunk == spine.length) {
+            spine = Arrays.copyOf(spine, Math.max(4, spine.length * 2));
+        }
+        if (spine[chunk] == null) {
+            spine[chunk] = new Task[CHUNK_SIZE];
+        }
+        spine[chunk][size & CHUNK_MASK] = task;
+        return new TaskVector(spine, size + 1);
+    }
+
+    TaskVector replace(int index, Task task) {
+        Objects.checkIndex(index, size);
+        int chunk = index >>> CHUNK_BITS;
+        Task[][] spine = chunks.clone();
+        spine[chunk] = spine[chunk].clone();
+        spine[chunk][index & CHUNK_MASK] = task;
+        return new TaskVector(spine, size);
+    }
+}
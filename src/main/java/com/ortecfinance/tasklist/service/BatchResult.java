@@ -0,0 +1,10 @@
+package com.ortecfinance.tasklist.service;
+
+import java.util.List;
+
+// Outcome of a bulk write: one item per request item, in request order.
+// taskId is set for items that were applied, error for the ones that were not.
+public record BatchResult(int succeeded, int failed, List<Item> items) {
+
+    public record Item(int index, Long taskId, String error) {}
+}
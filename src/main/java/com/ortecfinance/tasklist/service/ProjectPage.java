@@ -0,0 +1,12 @@
+package com.ortecfinance.tasklist.service;
+
+import com.ortecfinance.tasklist.model.Task;
+
+import java.util.List;
+
+// One page of projects and their tasks; nextCursor is null on the last page
+public record ProjectPage(List<ProjectTasks> projects, String nextCursor) {
+
+    // A project can span pages, the following page continues its task list
+    public record ProjectTasks(String name, List<Task> tasks) {}
+}
@@ -0,0 +1,6 @@
+package com.ortecfinance.tasklist.service;
+
+import com.ortecfinance.tasklist.model.Task;
+
+// One search result, best match first; the score is only meaningful relative to other hits of the same query
+public record SearchHit(String project, Task task, double score) {}
@@ -0,0 +1,212 @@
+package com.ortecfinance.tasklist.service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Inverted index from description tokens to task IDs. Tokens are lowercased runs of letters and digits.
+//
+// A query matches tasks that contain every query token; a token ending in '*' matches any term with
+// that prefix. Matches are ranked by the summed IDF of the matched terms, with prefix matches weighted
+// by how much of the term the prefix covers, then by task ID. Evaluation walks the postings of the
+// rarest query token and checks the others by binary search, stopping as soon as no remaining task
+// can enter the top results, so common words and short prefixes cost about as much as the limit.
+//
+// Descriptions never change after a task is created, so the index is append-only. Writers lock one
+// posting list at a time; readers never lock.
+final class SearchIndex {
+
+    // a prefix like "a*" would otherwise expand to most of the dictionary
+    static final int MAX_EXPANSIONS = 128;
+
+    private final ConcurrentSkipListMap<String, Postings> terms = new ConcurrentSkipListMap<>();
+    private final AtomicLong documents = new AtomicLong();
+
+    void add(long taskId, String description) {
+        for (String token : new HashSet<>(tokenize(description))) {
+            terms.computeIfAbsent(token, t -> new Postings()).add(taskId);
+        }
+        documents.incrementAndGet();
+    }
+
+    List<Match> search(String query, int limit) {
+        List<List<Term>> tokens = new ArrayList<>();
+        for (String raw : query.trim().split("\\s+")) {
+            boolean prefix = raw.endsWith("*");
+            List<String> parts = tokenize(prefix ? raw.substring(0, raw.length() - 1) : raw);
+            for (int i = 0; i < parts.size(); i++) {
+                // only the last part of "don't*" is a prefix
+                List<Term> resolved = resolve(parts.get(i), prefix && i == parts.size() - 1);
+                if (resolved.isEmpty()) {
+                    return List.of();
+                }
+                tokens.add(resolved);
+            }
+        }
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        tokens.sort(Comparator.comparingLong(SearchIndex::frequency));
+        return rank(tokens.get(0), tokens.subList(1, tokens.size()), limit);
+    }
+
+    // Walks the driving token's terms from highest to lowest weight, each in ID order. A task's score is
+    // at most its term's weight plus the best weights of the other tokens, so once the current top
+    // matches can't be beaten (score, then lower ID) the rest of that term, and any lighter term, is skipped.
+    private List<Match> rank(List<Term> driving, List<List<Term>> others, int limit) {
+        double restBound = 0;
+        for (List<Term> token : others) {
+            restBound += token.stream().mapToDouble(Term::weight).max().orElse(0);
+        }
+        List<Term> expansions = new ArrayList<>(driving);
+        expansions.sort(Comparator.comparingDouble(Term::weight).reversed());
+        Comparator<Match> ranking = Comparator.comparingDouble(Match::score).reversed()
+                .thenComparingLong(Match::taskId);
+        // worst match at the head
+        PriorityQueue<Match> top = new PriorityQueue<>(ranking.reversed());
+
+        for (int e = 0; e < expansions.size(); e++) {
+            Term term = expansions.get(e);
+            double bound = term.weight() + restBound;
+            if (top.size() == limit && top.peek().score() > bound) {
+                break;
+            }
+            Postings.View postings = term.postings();
+            for (int i = 0; i < postings.size(); i++) {
+                long id = postings.ids()[i];
+                Match worst = top.peek();
+                if (top.size() == limit && (worst.score() > bound || worst.score() == bound && worst.taskId() < id)) {
+                    break;
+                }
+                if (matchedEarlier(expansions, e, id)) {
+                    continue;
+                }
+                double rest = score(id, others);
+                if (Double.isNaN(rest)) {
+                    continue;
+                }
+                top.add(new Match(id, term.weight() + rest));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        }
+        List<Match> matches = new ArrayList<>(top);
+        matches.sort(ranking);
+        return matches;
+    }
+
+    // a task under several expansions was already scored with the heaviest one
+    private static boolean matchedEarlier(List<Term> expansions, int current, long id) {
+        for (int e = 0; e < current; e++) {
+            if (expansions.get(e).postings().contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Summed best weight of each token's terms that contain the task, NaN if any token is missing
+    private static double score(long id, List<List<Term>> tokens) {
+        double score = 0;
+        for (List<Term> token : tokens) {
+            double best = Double.NaN;
+            for (Term term : token) {
+                if ((Double.isNaN(best) || term.weight() > best) && term.postings().contains(id)) {
+                    best = term.weight();
+                }
+            }
+            if (Double.isNaN(best)) {
+                return Double.NaN;
+            }
+            score += best;
+        }
+        return score;
+    }
+
+    private List<Term> resolve(String token, boolean prefix) {
+        double total = Math.max(1, documents.get());
+        List<Term> resolved = new ArrayList<>();
+        Map<String, Postings> matches = prefix
+                ? terms.subMap(token, true, token + Character.MAX_VALUE, false)
+                : Optional.ofNullable(terms.get(token)).map(p -> Map.of(token, p)).orElse(Map.of());
+        for (Map.Entry<String, Postings> entry : matches.entrySet()) {
+            Postings.View postings = entry.getValue().view();
+            double idf = Math.log(1 + total / Math.max(1, postings.size()));
+            resolved.add(new Term(postings, idf * token.length() / entry.getKey().length()));
+            if (resolved.size() == MAX_EXPANSIONS) {
+                break;
+            }
+        }
+        return resolved;
+    }
+
+    private static long frequency(List<Term> terms) {
+        long frequency = 0;
+        for (Term term : terms) {
+            frequency += term.postings().size();
+        }
+        return frequency;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int c = text.codePointAt(i);
+            i += Character.charCount(c);
+            if (Character.isLetterOrDigit(c)) {
+                token.appendCodePoint(Character.toLowerCase(c));
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (!token.isEmpty()) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    record Match(long taskId, double score) {}
+
+    private record Term(Postings.View postings, double weight) {}
+
+    // Task IDs containing one term, kept sorted. IDs mostly arrive in order, so an add writes past the
+    // published size and then publishes the longer view; readers only ever look at their view's prefix.
+    // Out-of-order IDs and growth copy the array instead of shifting it in place.
+    private static final class Postings {
+        record View(long[] ids, int size) {
+            boolean contains(long id) {
+                return Arrays.binarySearch(ids, 0, size, id) >= 0;
+            }
+        }
+
+        private volatile View view = new View(new long[2], 0);
+
+        View view() {
+            return view;
+        }
+
+        synchronized void add(long id) {
+            long[] ids = view.ids();
+            int size = view.size();
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (position == size && size < ids.length) {
+                ids[size] = id;
+            } else {
+                long[] next = new long[size < ids.length ? ids.length : ids.length * 2];
+                System.arraycopy(ids, 0, next, 0, position);
+                next[position] = id;
+                System.arraycopy(ids, position, next, position + 1, size - position);
+                ids = next;
+            }
+            view = new View(ids, size + 1);
+        }
+    }
+}
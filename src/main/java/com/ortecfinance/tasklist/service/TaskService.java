@@ -1,53 +1,440 @@
 package com.ortecfinance.tasklist.service;
 
+import com.ortecfinance.tasklist.events.ChangeFeed;
+import com.ortecfinance.tasklist.events.TaskEvent;
 import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.repository.TaskQuery;
 import com.ortecfinance.tasklist.repository.TaskRepository;
+import com.ortecfinance.tasklist.repository.TaskSnapshot;
+import com.ortecfinance.tasklist.repository.TaskStats;
 
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Clock;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
-import java.util.LinkedHashMap;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 public class TaskService {
+    private static final int STRIPES = 64;
+    // keeps per-day results bounded, about ten years of days
+    static final int MAX_RANGE_DAYS = 3_660;
+
     private final TaskRepository repository;
+    private final ChangeFeed feed;
+    // "today" for the deadline queries; fixed clocks make them deterministic in tests
+    private final Clock clock;
+    // versions restart with the process, so tags carry a per-instance prefix to never match a tag from an earlier run
+    private final String tagPrefix = Long.toHexString(new SecureRandom().nextLong()) + "-";
+    // A write and the publishing of its event happen under the project's stripe, so the feed carries
+    // the changes of one project in the order they were applied
+    private final Lock[] stripes = new Lock[STRIPES];
+    // replaced as a whole when a replica reloads the primary's state
+    private volatile SearchIndex searchIndex;
 
     public TaskService(TaskRepository repository) {
+        this(repository, new ChangeFeed());
+    }
+
+    public TaskService(TaskRepository repository, ChangeFeed feed) {
+        this(repository, feed, Clock.systemDefaultZone());
+    }
+
+    public TaskService(TaskRepository repository, ChangeFeed feed, Clock clock) {
         this.repository = repository;
+        this.feed = feed;
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        // tasks restored before the service existed (journal replay) are indexed once here
+        searchIndex = index(repository.snapshot());
+    }
+
+    private static SearchIndex index(TaskSnapshot snapshot) {
+        SearchIndex index = new SearchIndex();
+        snapshot.projects().values()
+                .forEach(tasks -> tasks.forEach(task -> index.add(task.getId(), task.getDescription())));
+        return index;
+    }
+
+    public ChangeFeed getChangeFeed() {
+        return feed;
     }
 
     public void addProject(String name) {
-        repository.addProject(name);
+        withProjects(Set.of(name), () -> {
+            if (!repository.hasProject(name)) {
+                repository.addProject(name);
+                feed.publish(new TaskEvent.ProjectAdded(name));
+            }
+            return null;
+        });
     }
 
     public void addTask(String project, String description) {
+        requireProject(project);
+        withProjects(Set.of(project), () -> {
+            Task task = repository.addTask(project, description);
+            searchIndex.add(task.getId(), description);
+            feed.publish(new TaskEvent.TaskAdded(project, task.getId(), description));
+            return null;
+        });
+    }
+
+    public void setTaskDone(long id, boolean done) {
+        String project = projectOf(id);
+        withProjects(Set.of(project), () -> repository.setTaskDone(id, done)
+                .map(task -> feed.publish(new TaskEvent.DoneChanged(project, id, done))));
+    }
+
+    // Returns the updated task, so callers can hand out its new version
+    public Task setTaskDeadline(long id, LocalDate date) {
+        String project = projectOf(id);
+        return withProjects(Set.of(project), () -> repository.setTaskDeadline(id, date)
+                .map(task -> {
+                    feed.publish(new TaskEvent.DeadlineChanged(project, id, date));
+                    return task;
+                }))
+                .orElseThrow(() -> taskNotFound(id));
+    }
+
+    // Optimistic forms of setTaskDone and setTaskDeadline: the change is applied only if the task is still at
+    // expectedVersion, otherwise TaskVersionConflictException is thrown and nothing changes. The check and
+    // the write happen under the task's project lock, so concurrent writers never lose each other's updates.
+    // On a repository without conditional updates they fail with UnsupportedOperationException before
+    // looking at the task.
+    public Task setTaskDone(long id, boolean done, long expectedVersion) {
+        requireConditionalUpdates();
+        String project = projectOf(id);
+        return conditionally(project, id, expectedVersion,
+                () -> repository.compareAndSetTaskDone(id, expectedVersion, done),
+                new TaskEvent.DoneChanged(project, id, done));
+    }
+
+    public Task setTaskDeadline(long id, LocalDate date, long expectedVersion) {
+        requireConditionalUpdates();
+        String project = projectOf(id);
+        return conditionally(project, id, expectedVersion,
+                () -> repository.compareAndSetTaskDeadline(id, expectedVersion, date),
+                new TaskEvent.DeadlineChanged(project, id, date));
+    }
+
+    public boolean supportsConditionalUpdates() {
+        return repository.supportsConditionalUpdates();
+    }
+
+    private void requireConditionalUpdates() {
+        if (!supportsConditionalUpdates()) {
+            throw new UnsupportedOperationException("This repository does not support conditional updates.");
+        }
+    }
+
+    private Task conditionally(String project, long id, long expectedVersion,
+                               Supplier<Optional<TaskRepository.ConditionalUpdate>> update, TaskEvent event) {
+        TaskRepository.ConditionalUpdate result = withProjects(Set.of(project), () -> {
+            Optional<TaskRepository.ConditionalUpdate> updated = update.get();
+            if (updated.isPresent() && updated.get().applied()) {
+                feed.publish(event);
+            }
+            return updated;
+        }).orElseThrow(() -> taskNotFound(id));
+        if (!result.applied()) {
+            throw new TaskVersionConflictException(expectedVersion, result.task());
+        }
+        return result.task();
+    }
+
+    public Task getTask(long id) {
+        return repository.findTaskById(id).orElseThrow(() -> taskNotFound(id));
+    }
+
+    // Primary side of replication: the current state plus a feed subscription that starts right after it.
+    // Taken with every stripe held, so no write falls between the snapshot and the first event.
+    public record FeedStart(TaskSnapshot snapshot, long eventId, ChangeFeed.Subscription subscription) {}
+
+    public FeedStart subscribeWithSnapshot(ChangeFeed.Subscriber subscriber) {
+        for (Lock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            TaskSnapshot snapshot = repository.snapshot();
+            long eventId = feed.lastId();
+            return new FeedStart(snapshot, eventId, feed.subscribe(eventId, subscriber));
+        } finally {
+            for (Lock stripe : stripes) {
+                stripe.unlock();
+            }
+        }
+    }
+
+    // Replica side: applies a change the primary already made, keeping the search index and the local
+    // feed in step just like a local write would. Task IDs are the primary's.
+    public void applyReplicated(TaskEvent event) {
+        String project = switch (event) {
+            case TaskEvent.ProjectAdded e -> e.project();
+            case TaskEvent.TaskAdded e -> e.project();
+            case TaskEvent.DoneChanged e -> e.project();
+            case TaskEvent.DeadlineChanged e -> e.project();
+        };
+        withProjects(Set.of(project), () -> {
+            switch (event) {
+                case TaskEvent.ProjectAdded e -> repository.addProject(e.project());
+                case TaskEvent.TaskAdded e -> {
+                    repository.restoreTask(e.project(), new Task(e.taskId(), e.description(), false));
+                    searchIndex.add(e.taskId(), e.description());
+                }
+                case TaskEvent.DoneChanged e -> repository.setTaskDone(e.taskId(), e.done());
+                case TaskEvent.DeadlineChanged e -> repository.setTaskDeadline(e.taskId(), e.deadline());
+            }
+            return feed.publish(event);
+        });
+    }
+
+    // Replica side: rebuilds the search index after the repository was reloaded from a primary snapshot
+    public void reindex() {
+        searchIndex = index(repository.snapshot());
+    }
+
+    private String projectOf(long id) {
+        return repository.findProjectByTaskId(id).orElseThrow(() -> taskNotFound(id));
+    }
+
+    private static IllegalStateException taskNotFound(long id) {
+        return new IllegalStateException(String.format("Could not find a task with an ID of %d.", id));
+    }
+
+    // Bulk forms of addTask, setTaskDone and setTaskDeadline. Each batch goes to the repository in one call;
+    // a missing project or task fails only its own item.
+    public BatchResult addTasks(List<TaskRepository.NewTask> tasks) {
+        Set<String> projects = new HashSet<>();
+        tasks.forEach(task -> projects.add(task.projectName()));
+        List<Optional<Task>> results = withProjects(projects, () -> {
+            List<Optional<Task>> added = repository.addTasks(tasks);
+            for (int i = 0; i < tasks.size(); i++) {
+                TaskRepository.NewTask task = tasks.get(i);
+                added.get(i).ifPresent(created -> {
+                    searchIndex.add(created.getId(), task.description());
+                    feed.publish(new TaskEvent.TaskAdded(task.projectName(), created.getId(), task.description()));
+                });
+            }
+            return added;
+        });
+        return toBatchResult(results, i -> String.format(
+                "Could not find a project with the name \"%s\".", tasks.get(i).projectName()));
+    }
+
+    public BatchResult setTasksDone(List<TaskRepository.DoneChange> changes) {
+        Map<Long, String> projects = projectsOf(changes.stream().map(TaskRepository.DoneChange::taskId).toList());
+        List<Optional<Task>> results = withProjects(new HashSet<>(projects.values()), () -> {
+            List<Optional<Task>> updated = repository.setTasksDone(changes);
+            for (int i = 0; i < changes.size(); i++) {
+                TaskRepository.DoneChange change = changes.get(i);
+                updated.get(i).ifPresent(task -> feed.publish(
+                        new TaskEvent.DoneChanged(projects.get(change.taskId()), change.taskId(), change.done())));
+            }
+            return updated;
+        });
+        return toBatchResult(results, i -> String.format(
+                "Could not find a task with an ID of %d.", changes.get(i).taskId()));
+    }
+
+    public BatchResult setTaskDeadlines(List<TaskRepository.DeadlineChange> changes) {
+        Map<Long, String> projects = projectsOf(changes.stream().map(TaskRepository.DeadlineChange::taskId).toList());
+        List<Optional<Task>> results = withProjects(new HashSet<>(projects.values()), () -> {
+            List<Optional<Task>> updated = repository.setTaskDeadlines(changes);
+            for (int i = 0; i < changes.size(); i++) {
+                TaskRepository.DeadlineChange change = changes.get(i);
+                updated.get(i).ifPresent(task -> feed.publish(new TaskEvent.DeadlineChanged(
+                        projects.get(change.taskId()), change.taskId(), change.deadline())));
+            }
+            return updated;
+        });
+        return toBatchResult(results, i -> String.format(
+                "Could not find a task with an ID of %d.", changes.get(i).taskId()));
+    }
+
+    private Map<Long, String> projectsOf(List<Long> taskIds) {
+        Map<Long, String> projects = new HashMap<>();
+        for (long id : taskIds) {
+            repository.findProjectByTaskId(id).ifPresent(project -> projects.put(id, project));
+        }
+        return projects;
+    }
+
+    // Stripes are always taken in index order, so writers to overlapping sets of projects can't deadlock
+    private <T> T withProjects(Set<String> projects, Supplier<T> write) {
+        SortedSet<Integer> held = new TreeSet<>();
+        projects.forEach(project -> held.add(Math.floorMod(project.hashCode(), STRIPES)));
+        held.forEach(index -> stripes[index].lock());
+        try {
+            return write.get();
+        } finally {
+            held.forEach(index -> stripes[index].unlock());
+        }
+    }
+
+    private static BatchResult toBatchResult(List<Optional<Task>> results, IntFunction<String> error) {
+        List<BatchResult.Item> items = new ArrayList<>(results.size());
+        int succeeded = 0;
+        for (int i = 0; i < results.size(); i++) {
+            Optional<Task> task = results.get(i);
+            if (task.isPresent()) {
+                items.add(new BatchResult.Item(i, task.get().getId(), null));
+                succeeded++;
+            } else {
+                items.add(new BatchResult.Item(i, null, error.apply(i)));
+            }
+        }
+        return new BatchResult(succeeded, results.size() - succeeded, items);
+    }
+
+    // Tasks whose descriptions contain every word of the query, best match first; "word*" matches by prefix
+    public List<SearchHit> search(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be empty.");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Search limit must be positive.");
+        }
+        List<SearchHit> hits = new ArrayList<>();
+        for (SearchIndex.Match match : searchIndex.search(query, limit)) {
+            Optional<Task> task = repository.findTaskById(match.taskId());
+            Optional<String> project = repository.findProjectByTaskId(match.taskId());
+            if (task.isPresent() && project.isPresent()) {
+                hits.add(new SearchHit(project.get(), task.get(), match.score()));
+            }
+        }
+        return hits;
+    }
+
+    // Filtered task list; the repository plans it over its indexes and reports the plan it used
+    public TaskQuery.Result queryTasks(TaskQuery query) {
+        if (query.project() != null) {
+            requireProject(query.project());
+        }
+        return repository.query(query);
+    }
+
+    public Map<String, List<Task>> getAllProjectsWithTasks() {
+        return repository.getAllProjectsWithTasks();
+    }
+
+    // Immutable view that stays consistent while writers carry on
+    public TaskSnapshot getSnapshot() {
+        return repository.snapshot();
+    }
+
+    // Opaque entity tags for conditional GETs: a tag changes whenever the data behind it does.
+    // Reading one is cheap, so a request can be answered with 304 before any view is built.
+    public String getVersionTag() {
+        return versionTag(getVersion());
+    }
+
+    public long getVersion() {
+        return repository.version();
+    }
+
+    public String versionTag(long version) {
+        return tagPrefix + version;
+    }
+
+    public String getProjectVersionTag(String project) {
+        requireProject(project);
+        return tagPrefix + "p" + repository.projectVersion(project);
+    }
+
+    public String getTaskVersionTag(Task task) {
+        return tagPrefix + "t" + task.getVersion();
+    }
+
+    // The task version a tag from getTaskVersionTag names; empty for any other tag, including this
+    // instance's other kinds of tag and tags from an earlier run
+    public OptionalLong taskVersionOf(String tag) {
+        String taskPrefix = tagPrefix + "t";
+        if (!tag.startsWith(taskPrefix)) {
+            return OptionalLong.empty();
+        }
+        try {
+            return OptionalLong.of(Long.parseLong(tag.substring(taskPrefix.length())));
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    public List<Task> getProjectTasks(String project) {
+        requireProject(project);
+        return repository.getTasks(project, 0, Integer.MAX_VALUE);
+    }
+
+    private void requireProject(String project) {
         if (!repository.hasProject(project)) {
             throw new IllegalStateException(
                     String.format("Could not find a project with the name \"%s\".", project)
             );
         }
-        repository.addTask(project, description);
     }
 
-    public void setTaskDone(long id, boolean done) {
-        Task task = repository.findTaskById(id)
-                .orElseThrow(() -> new IllegalStateException(
-                        String.format("Could not find a task with an ID of %d.", id)
-                ));
-        task.setDone(done);
+    // Pages are cut by task count; the cursor is the project position plus the last task ID returned
+    public ProjectPage getProjectsPage(String cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive.");
+        }
+        List<String> names = repository.getProjectNames();
+        long[] position = decodeCursor(cursor);
+        int projectIndex = (int) position[0];
+        long afterId = position[1];
+
+        List<ProjectPage.ProjectTasks> projects = new ArrayList<>();
+        int remaining = limit;
+        while (projectIndex < names.size() && remaining > 0) {
+            String name = names.get(projectIndex);
+            // one extra task tells whether the project continues on the next page
+            List<Task> tasks = repository.getTasks(name, afterId, remaining + 1);
+            boolean more = tasks.size() > remaining;
+            if (more) {
+                tasks = tasks.subList(0, remaining);
+            }
+            if (!tasks.isEmpty() || afterId == 0) {
+                projects.add(new ProjectPage.ProjectTasks(name, tasks));
+            }
+            if (more) {
+                afterId = tasks.get(tasks.size() - 1).getId();
+            } else {
+                projectIndex++;
+                afterId = 0;
+            }
+            remaining -= tasks.size();
+        }
+        String nextCursor = projectIndex < names.size() ? encodeCursor(projectIndex, afterId) : null;
+        return new ProjectPage(projects, nextCursor);
     }
 
-    public void setTaskDeadline(long id, LocalDate date) {
-        Task task = repository.findTaskById(id)
-                .orElseThrow(() -> new IllegalStateException(
-                        String.format("Could not find a task with an ID of %d.", id)
-                ));
-        task.setDeadline(date);
+    private static String encodeCursor(int projectIndex, long afterId) {
+        String raw = projectIndex + ":" + afterId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
     }
 
-    public Map<String, List<Task>> getAllProjectsWithTasks() {
-        return repository.getAllProjectsWithTasks();
+    private static long[] decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new long[] {0, 0};
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            String[] parts = raw.split(":", 2);
+            long projectIndex = Integer.parseInt(parts[0]);
+            long afterId = Long.parseLong(parts[1]);
+            if (projectIndex < 0 || afterId < 0) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+            return new long[] {projectIndex, afterId};
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor.", e);
+        }
     }
 
     // DTO for transferring deadline viewdata
@@ -65,39 +452,58 @@ public class TaskService {
     }
 
     public DeadlineView getTasksByDeadline() {
-        Map<LocalDate, Map<String, List<Task>>> byDeadline = new TreeMap<>();
-        Map<String, List<Task>> noDeadline = new LinkedHashMap<>();
-
-        for (Map.Entry<String, List<Task>> project : repository.getAllProjectsWithTasks().entrySet()) {
-            String projectName = project.getKey();
-            for (Task task : project.getValue()) {
-                if (task.getDeadline() == null) {
-                    noDeadline
-                            .computeIfAbsent(projectName, k -> new ArrayList<>())
-                            .add(task);
-                } else {
-                    byDeadline
-                            .computeIfAbsent(task.getDeadline(), k -> new LinkedHashMap<>())
-                            .computeIfAbsent(projectName, k -> new ArrayList<>())
-                            .add(task);
-                }
-            }
-        }
-        return new DeadlineView(byDeadline, noDeadline);
+        // served from the repository's deadline index, no full scan; both halves from the same point in time
+        return repository.consistentRead(
+                () -> new DeadlineView(repository.getTasksByDeadline(), repository.getTasksWithoutDeadline()));
     }
 
     public Map<String, List<Task>> getTodaysTasks() {
-        LocalDate todayDate = LocalDate.now();
-        Map<String, List<Task>> todayTasks = new LinkedHashMap<>();
-
-        for (Map.Entry<String, List<Task>> project : repository.getAllProjectsWithTasks().entrySet()) {
-            List<Task> tasksForToday = project.getValue().stream()
-                    .filter(task -> task.getDeadline() != null && task.getDeadline().equals(todayDate))
-                    .toList();
-            if (!tasksForToday.isEmpty()) {
-                todayTasks.put(project.getKey(), tasksForToday);
-            }
+        return repository.getTasksDueOn(today());
+    }
+
+    // Open tasks whose deadline has passed, by deadline then project
+    public SortedMap<LocalDate, Map<String, List<Task>>> getOverdueTasks() {
+        return openTasksDue(null, today().minusDays(1));
+    }
+
+    // Open tasks due within the next days, today included
+    public SortedMap<LocalDate, Map<String, List<Task>>> getUpcomingTasks(int days) {
+        if (days <= 0 || days > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Days must be between 1 and " + MAX_RANGE_DAYS + ".");
+        }
+        LocalDate today = today();
+        return openTasksDue(today, today.plusDays(days - 1));
+    }
+
+    // Tasks due per day over an inclusive range; days without tasks are left out
+    public SortedMap<LocalDate, Integer> countTasksByDeadline(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("The date range ends before it starts.");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("The date range may span at most " + MAX_RANGE_DAYS + " days.");
+        }
+        return repository.countTasksByDeadline(from, to);
+    }
+
+    // Open, done, overdue and no-deadline counts per project, from counters the repository keeps current
+    public Map<String, TaskStats> getProjectStats() {
+        return repository.getProjectStats(today());
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    // A deadline-ordered range query; matches arrive by date and project, so grouping keeps that order
+    private SortedMap<LocalDate, Map<String, List<Task>>> openTasksDue(LocalDate from, LocalDate to) {
+        TaskQuery query = new TaskQuery(null, false, from, to, TaskQuery.Sort.DEADLINE, Integer.MAX_VALUE);
+        SortedMap<LocalDate, Map<String, List<Task>>> result = new TreeMap<>();
+        for (TaskQuery.Match match : repository.query(query).tasks()) {
+            result.computeIfAbsent(match.task().getDeadline(), date -> new LinkedHashMap<>())
+                    .computeIfAbsent(match.project(), project -> new ArrayList<>())
+                    .add(match.task());
         }
-        return todayTasks;
+        return result;
     }
 }
@@ -0,0 +1,22 @@
+package com.ortecfinance.tasklist.service;
+
+import com.ortecfinance.tasklist.model.Task;
+
+// A conditional update found the task at another version than the caller expected; nothing was changed.
+// Carries the task as it is now, so the caller can decide again on current data.
+public final class TaskVersionConflictException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Task current;
+
+    public TaskVersionConflictException(long expectedVersion, Task current) {
+        super(String.format("Task %d was changed by someone else: expected version %d, found %d.",
+                current.getId(), expectedVersion, current.getVersion()));
+        this.current = current;
+    }
+
+    public Task getCurrent() {
+        return current;
+    }
+}
@@ -0,0 +1,92 @@
+package com.ortecfinance.tasklist.cli;
+
+import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.repository.InMemoryTaskRepository;
+import com.ortecfinance.tasklist.service.TaskService;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.time.LocalDate;
+
+import static java.lang.System.lineSeparator;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TaskCLIScriptTest {
+
+    @Test
+    void it_runs_a_script_without_prompts_and_summarises_failures() {
+        String script = String.join("\n",
+                "# migration",
+                "add project secrets",
+                "add task secrets Eat more donuts.",
+                "",
+                "check 7",
+                "deadline 1 31-12-2025",
+                "frobnicate",
+                "show");
+        StringWriter output = new StringWriter();
+
+        int failed = run(script, new PrintWriter(output), 100);
+
+        assertThat(failed, is(2));
+        assertThat(output.toString(), is(String.join(lineSeparator(),
+                "Could not find a task with an ID of 7.",
+                "I don't know what the command \"frobnicate\" is.",
+                "secrets",
+                "    [ ] 1: Eat more donuts. 31-12-2025",
+                "",
+                "Ran 6 command(s), 2 failed.",
+                "    line 5: Could not find a task with an ID of 7.",
+                "    line 7: I don't know what the command \"frobnicate\" is.",
+                "")));
+    }
+
+    @Test
+    void it_flushes_output_in_batches() {
+        StringBuilder script = new StringBuilder("add project chores\n");
+        for (int i = 0; i < 999; i++) {
+            script.append("add task chores Chore ").append(i).append('\n');
+        }
+        int[] flushes = {0};
+        Writer counting = new StringWriter() {
+            @Override
+            public void flush() {
+                flushes[0]++;
+            }
+        };
+
+        int failed = run(script.toString(), new PrintWriter(counting), 100);
+
+        assertThat(failed, is(0));
+        // one flush per 100 commands plus the final one, instead of one per command
+        assertThat(flushes[0], is(11));
+    }
+
+    @Test
+    void updates_apply_over_changes_made_by_other_clients() {
+        TaskService service = new TaskService(new InMemoryTaskRepository());
+        service.addProject("secrets");
+        service.addTask("secrets", "Eat more donuts.");
+        // another client moves the task on before the script runs
+        service.setTaskDeadline(1, LocalDate.of(2025, 6, 30));
+        service.setTaskDone(1, true);
+        String script = "deadline 1 31-12-2025\nuncheck 1\n";
+        StringWriter output = new StringWriter();
+
+        int failed = new TaskCLI(service, new BufferedReader(new StringReader(script)), new PrintWriter(output))
+                .runScript(100);
+
+        assertThat(failed, is(0));
+        Task task = service.getTask(1);
+        assertThat(task.getDeadline(), is(LocalDate.of(2025, 12, 31)));
+        assertThat(task.isDone(), is(false));
+        assertThat(task.getVersion(), is(5L));
+    }
+
+    private static int run(String script, PrintWriter out, int flushEvery) {
+        TaskService service = new TaskService(new InMemoryTaskRepository());
+        BufferedReader in = new BufferedReader(new StringReader(script));
+        return new TaskCLI(service, in, out).runScript(flushEvery);
+    }
+}
@@ -0,0 +1,59 @@
+package com.ortecfinance.tasklist.codec;
+
+import com.ortecfinance.tasklist.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TaskBinaryCodecTest {
+
+    @Test
+    void projects_survive_a_round_trip_in_order() throws IOException {
+        Map<String, List<Task>> projects = new LinkedHashMap<>();
+        projects.put("training", List.of(
+                new Task(3, "Four Elements of Simple Design", true, LocalDate.of(2025, 11, 10), 4),
+                new Task(4, "Ünïcödé ☠", false, null, 1)));
+        projects.put("empty", List.of());
+        projects.put("secrets", List.of(new Task(1, "", false, LocalDate.of(1969, 7, 20), 2)));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TaskBinaryCodec.writeProjects(new DataOutputStream(bytes), projects);
+        Map<String, List<Task>> read = TaskBinaryCodec.readProjects(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(read.keySet(), contains("training", "empty", "secrets"));
+        assertThat(render(read), is(render(projects)));
+    }
+
+    @Test
+    void a_reader_can_skip_a_task_by_its_length_prefix() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        TaskBinaryCodec.writeTask(out, new Task(1, "Eat more donuts.", false));
+        TaskBinaryCodec.writeTask(out, new Task(2, "Destroy all humans.", true));
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        in.skipBytes(in.readInt());
+        Task second = TaskBinaryCodec.readTask(in);
+
+        assertThat(second.getId(), is(2L));
+        assertThat(second.getDescription(), is("Destroy all humans."));
+        assertThat(second.isDone(), is(true));
+        assertThat(in.available(), is(0));
+    }
+
+    private static List<String> render(Map<String, List<Task>> projects) {
+        return projects.entrySet().stream()
+                .flatMap(project -> project.getValue().stream().map(task -> project.getKey() + "/" + task.getId()
+                        + "/" + task.getDescription() + "/" + task.isDone() + "/" + task.getDeadline()
+                        + "/v" + task.getVersion()))
+                .toList();
+    }
+}
@@ -0,0 +1,69 @@
+package com.ortecfinance.tasklist.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ortecfinance.tasklist.repository.ConcurrentTaskRepository;
+import com.ortecfinance.tasklist.service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class TaskControllerConditionalGetTest {
+
+    private TaskService service;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        service = new TaskService(new ConcurrentTaskRepository());
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        mvc = MockMvcBuilders.standaloneSetup(new TaskController(service, objectMapper)).build();
+        service.addProject("secrets");
+        service.addProject("training");
+        service.addTask("secrets", "Eat more donuts.");
+    }
+
+    @Test
+    void unchanged_views_are_answered_with_304() throws Exception {
+        for (String path : new String[] {"/projects", "/projects/view_by_deadline", "/projects/page"}) {
+            String etag = etagOf(path);
+
+            // a 304 still names the tag it confirms
+            mvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+            service.setTaskDone(1, true);
+            mvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag)).andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void a_project_tag_only_changes_with_that_project() throws Exception {
+        String secrets = etagOf("/projects/secrets/tasks");
+        String training = etagOf("/projects/training/tasks");
+
+        service.addTask("training", "SOLID");
+
+        mvc.perform(get("/projects/secrets/tasks").header(HttpHeaders.IF_NONE_MATCH, secrets))
+                .andExpect(status().isNotModified());
+        mvc.perform(get("/projects/training/tasks").header(HttpHeaders.IF_NONE_MATCH, training))
+                .andExpect(status().isOk());
+        mvc.perform(get("/projects/missing/tasks")).andExpect(status().isNotFound());
+    }
+
+    private String etagOf(String path) throws Exception {
+        String etag = mvc.perform(get(path)).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag, startsWith("\""));
+        return etag;
+    }
+}
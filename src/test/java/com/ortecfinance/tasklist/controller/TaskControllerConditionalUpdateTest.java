@@ -0,0 +1,107 @@
+package com.ortecfinance.tasklist.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ortecfinance.tasklist.repository.ColumnarTaskRepository;
+import com.ortecfinance.tasklist.repository.ConcurrentTaskRepository;
+import com.ortecfinance.tasklist.service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class TaskControllerConditionalUpdateTest {
+
+    private TaskService service;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        service = new TaskService(new ConcurrentTaskRepository());
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        mvc = MockMvcBuilders.standaloneSetup(new TaskController(service, objectMapper)).build();
+        service.addProject("secrets");
+        service.addTask("secrets", "Eat more donuts.");
+    }
+
+    @Test
+    void a_deadline_is_only_set_while_the_task_is_at_the_version_the_client_read() throws Exception {
+        String read = mvc.perform(get("/projects/secrets/tasks/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(read, is(taskTag(1)));
+
+        mvc.perform(put("/projects/secrets/tasks/1").param("deadline", "31-12-2025")
+                        .header(HttpHeaders.IF_MATCH, read))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, taskTag(2)));
+
+        // a second client still holding version 1 is told instead of overwriting the first one's change
+        mvc.perform(put("/projects/secrets/tasks/1").param("deadline", "01-01-2026")
+                        .header(HttpHeaders.IF_MATCH, read))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string(HttpHeaders.ETAG, taskTag(2)));
+        assertThat(service.getTask(1).getDeadline(), is(LocalDate.of(2025, 12, 31)));
+
+        // a bare version, a weak tag or another instance's tag never matches
+        mvc.perform(put("/projects/secrets/tasks/1").param("deadline", "01-01-2026")
+                        .header(HttpHeaders.IF_MATCH, "\"2\", W/" + taskTag(2) + ", \"0-t2\""))
+                .andExpect(status().isPreconditionFailed());
+
+        mvc.perform(put("/projects/secrets/tasks/1").param("deadline", "01-01-2026")
+                        .header(HttpHeaders.IF_MATCH, taskTag(7) + ", " + taskTag(2)))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, taskTag(3)));
+    }
+
+    @Test
+    void without_a_precondition_the_update_is_unconditional() throws Exception {
+        service.setTaskDone(1, true);
+
+        mvc.perform(put("/projects/secrets/tasks/1").param("deadline", "31-12-2025"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, taskTag(3)));
+        mvc.perform(put("/projects/secrets/tasks/1").param("deadline", "31-12-2025")
+                        .header(HttpHeaders.IF_MATCH, "*"))
+                .andExpect(status().isNoContent());
+        mvc.perform(put("/projects/secrets/tasks/9").param("deadline", "31-12-2025")
+                        .header(HttpHeaders.IF_MATCH, taskTag(1)))
+                .andExpect(status().isNotFound());
+        mvc.perform(get("/projects/secrets/tasks/9")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void a_store_without_conditional_updates_refuses_if_match() throws Exception {
+        TaskService columnar = new TaskService(new ColumnarTaskRepository());
+        columnar.addProject("secrets");
+        columnar.addTask("secrets", "Eat more donuts.");
+        MockMvc columnarMvc = MockMvcBuilders
+                .standaloneSetup(new TaskController(columnar, new ObjectMapper().registerModule(new JavaTimeModule())))
+                .build();
+
+        columnarMvc.perform(put("/projects/secrets/tasks/1").param("deadline", "31-12-2025")
+                        .header(HttpHeaders.IF_MATCH, "\"x\""))
+                .andExpect(status().isNotImplemented());
+        assertThat(columnar.getTask(1).getDeadline(), is(nullValue()));
+        columnarMvc.perform(put("/projects/secrets/tasks/1").param("deadline", "31-12-2025"))
+                .andExpect(status().isNoContent());
+    }
+
+    // the strong tag this instance gives a task at the version
+    private String taskTag(long version) {
+        String tag = service.getTaskVersionTag(service.getTask(1));
+        return "\"" + tag.substring(0, tag.lastIndexOf('t') + 1) + version + "\"";
+    }
+}
@@ -0,0 +1,166 @@
+package com.ortecfinance.tasklist.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ortecfinance.tasklist.codec.TaskBinaryCodec;
+import com.ortecfinance.tasklist.codec.TaskBinaryHttpMessageConverter;
+import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.repository.ConcurrentTaskRepository;
+import com.ortecfinance.tasklist.service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class TaskControllerContentNegotiationTest {
+
+    private ObjectMapper objectMapper;
+    private TaskService service;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        service = new TaskService(new ConcurrentTaskRepository());
+        TaskController controller = new TaskController(service, objectMapper);
+        mvc = MockMvcBuilders.standaloneSetup(controller)
+                // in the order the application registers them
+                .setMessageConverters(new ByteArrayHttpMessageConverter(),
+                        new MappingJackson2HttpMessageConverter(objectMapper),
+                        new TaskBinaryHttpMessageConverter())
+                .build();
+        service.addProject("secrets");
+        service.addTask("secrets", "Eat more donuts.");
+        service.addTask("secrets", "Destroy all humans. ☠");
+        service.setTaskDeadline(1, LocalDate.of(2025, 11, 10));
+    }
+
+    @Test
+    void the_deadline_view_is_served_in_the_accepted_representation() throws Exception {
+        MockHttpServletResponse json = viewByDeadline(null);
+        assertThat(json.getContentType(), startsWith(MediaType.APPLICATION_JSON_VALUE));
+        assertThat(json.getHeaders(HttpHeaders.VARY), hasItem(HttpHeaders.ACCEPT));
+        JsonNode expected = objectMapper.readTree(json.getContentAsByteArray());
+
+        MockHttpServletResponse cbor = viewByDeadline("application/cbor");
+        assertThat(cbor.getContentType(), is("application/cbor"));
+        assertThat(objectMapper.copyWith(new CBORFactory()).readTree(cbor.getContentAsByteArray()), is(expected));
+
+        MockHttpServletResponse smile = viewByDeadline("application/json;q=0.5, application/x-jackson-smile");
+        assertThat(smile.getContentType(), is(TaskController.SMILE));
+        assertThat(objectMapper.copyWith(new SmileFactory()).readTree(smile.getContentAsByteArray()), is(expected));
+
+        MockHttpServletResponse binary = viewByDeadline(TaskBinaryCodec.MEDIA_TYPE);
+        assertThat(binary.getContentType(), is(TaskBinaryCodec.MEDIA_TYPE));
+        assertThat(binary.getContentAsByteArray().length, lessThan(json.getContentAsByteArray().length));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(binary.getContentAsByteArray()));
+        Map<LocalDate, Map<String, List<Task>>> byDeadline = TaskBinaryCodec.readByDeadline(in);
+        Map<String, List<Task>> noDeadline = TaskBinaryCodec.readProjects(in);
+        assertThat(byDeadline.get(LocalDate.of(2025, 11, 10)).get("secrets").get(0).getDescription(),
+                is("Eat more donuts."));
+        assertThat(noDeadline.get("secrets").get(0).getDescription(), is("Destroy all humans. ☠"));
+
+        mvc.perform(get("/projects/view_by_deadline").header(HttpHeaders.ACCEPT, "text/csv"))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void task_lists_are_served_as_x_tasklist_only_when_asked_for() throws Exception {
+        MockHttpServletResponse any = mvc.perform(get("/projects/secrets/tasks").header(HttpHeaders.ACCEPT, "*/*"))
+                .andExpect(status().isOk()).andReturn().getResponse();
+        assertThat(any.getContentType(), startsWith(MediaType.APPLICATION_JSON_VALUE));
+
+        MockHttpServletResponse binary = mvc.perform(get("/projects/secrets/tasks")
+                        .header(HttpHeaders.ACCEPT, TaskBinaryCodec.MEDIA_TYPE))
+                .andExpect(status().isOk()).andReturn().getResponse();
+        assertThat(binary.getContentType(), is(TaskBinaryCodec.MEDIA_TYPE));
+        List<Task> tasks = TaskBinaryCodec.readTasks(
+                new DataInputStream(new ByteArrayInputStream(binary.getContentAsByteArray())));
+        assertThat(tasks.stream().map(Task::getId).toList(), contains(1L, 2L));
+        assertThat(tasks.get(0).getDeadline(), is(LocalDate.of(2025, 11, 10)));
+        assertThat(tasks.get(0).getVersion(), is(2L));
+    }
+
+    @Test
+    void each_representation_has_its_own_tag() throws Exception {
+        for (String path : new String[] {"/projects", "/projects/secrets/tasks", "/projects/view_by_deadline"}) {
+            MockHttpServletResponse json = mvc.perform(get(path)).andExpect(status().isOk()).andReturn().getResponse();
+            MockHttpServletResponse binary = mvc.perform(get(path).header(HttpHeaders.ACCEPT, TaskBinaryCodec.MEDIA_TYPE))
+                    .andExpect(status().isOk()).andReturn().getResponse();
+            String jsonTag = json.getHeader(HttpHeaders.ETAG);
+            String binaryTag = binary.getHeader(HttpHeaders.ETAG);
+            assertThat(binaryTag, is(not(jsonTag)));
+            assertThat(json.getHeaders(HttpHeaders.VARY), hasItem(HttpHeaders.ACCEPT));
+            assertThat(binary.getHeaders(HttpHeaders.VARY), hasItem(HttpHeaders.ACCEPT));
+
+            // the JSON tag doesn't validate a cached x-tasklist body, nor the other way around
+            mvc.perform(get(path).header(HttpHeaders.ACCEPT, TaskBinaryCodec.MEDIA_TYPE)
+                            .header(HttpHeaders.IF_NONE_MATCH, jsonTag))
+                    .andExpect(status().isOk());
+            mvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, binaryTag)).andExpect(status().isOk());
+
+            MockHttpServletResponse notModified = mvc.perform(get(path)
+                            .header(HttpHeaders.ACCEPT, TaskBinaryCodec.MEDIA_TYPE)
+                            .header(HttpHeaders.IF_NONE_MATCH, binaryTag))
+                    .andExpect(status().isNotModified()).andReturn().getResponse();
+            assertThat(notModified.getHeader(HttpHeaders.ETAG), is(binaryTag));
+            assertThat(notModified.getHeaders(HttpHeaders.VARY), hasItem(HttpHeaders.ACCEPT));
+        }
+    }
+
+    @Test
+    void the_ndjson_stream_splits_large_projects_over_lines_with_the_same_name() throws Exception {
+        service.addProject("chores");
+        for (int i = 0; i < 2_500; i++) {
+            service.addTask("chores", "Chore " + i);
+        }
+        service.addProject("empty");
+
+        MvcResult started = mvc.perform(get("/projects/stream")).andExpect(request().asyncStarted()).andReturn();
+        String body = mvc.perform(asyncDispatch(started)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<JsonNode> lines = body.lines().map(line -> {
+            try {
+                return objectMapper.readTree(line);
+            } catch (Exception e) {
+                throw new AssertionError(line, e);
+            }
+        }).toList();
+        assertThat(lines.stream().map(line -> line.get("name").asText()).toList(),
+                contains("secrets", "chores", "chores", "chores", "empty"));
+        assertThat(lines.stream().map(line -> line.get("tasks").size()).toList(), contains(2, 1_000, 1_000, 500, 0));
+        // appended in order, the lines give the project's tasks in ID order
+        assertThat(lines.get(2).get("tasks").get(0).get("id").asLong(), is(1_003L));
+    }
+
+    private MockHttpServletResponse viewByDeadline(String accept) throws Exception {
+        var request = get("/projects/view_by_deadline");
+        if (accept != null) {
+            request.header(HttpHeaders.ACCEPT, accept);
+        }
+        return mvc.perform(request).andExpect(status().isOk()).andReturn().getResponse();
+    }
+}
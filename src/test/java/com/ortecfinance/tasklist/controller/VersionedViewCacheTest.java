@@ -0,0 +1,70 @@
+package com.ortecfinance.tasklist.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class VersionedViewCacheTest {
+
+    private final AtomicLong version = new AtomicLong(1);
+    private final AtomicInteger builds = new AtomicInteger();
+
+    @Test
+    void reads_between_writes_share_the_same_bytes() {
+        VersionedViewCache cache = new VersionedViewCache(version::get, this::view, new ObjectMapper()::writeValueAsBytes);
+
+        VersionedViewCache.Entry first = cache.get();
+        VersionedViewCache.Entry second = cache.get();
+        version.incrementAndGet();
+        VersionedViewCache.Entry third = cache.get();
+
+        assertThat(second.bytes(), is(sameInstance(first.bytes())));
+        assertThat(new String(first.bytes()), is("{\"build\":1}"));
+        assertThat(third.version(), is(2L));
+        assertThat(new String(third.bytes()), is("{\"build\":2}"));
+    }
+
+    @Test
+    void concurrent_readers_of_a_stale_entry_share_one_rebuild() throws Exception {
+        CountDownLatch building = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        VersionedViewCache cache = new VersionedViewCache(version::get, () -> {
+            building.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return view();
+        }, new ObjectMapper()::writeValueAsBytes);
+
+        ExecutorService readers = Executors.newFixedThreadPool(8);
+        List<Future<VersionedViewCache.Entry>> results = new ArrayList<>();
+        results.add(readers.submit(cache::get));
+        building.await(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 7; i++) {
+            results.add(readers.submit(cache::get));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<VersionedViewCache.Entry> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS).version(), is(1L));
+        }
+        readers.shutdown();
+        assertThat(builds.get(), is(1));
+    }
+
+    private Map<String, Integer> view() {
+        return Map.of("build", builds.incrementAndGet());
+    }
+}
@@ -0,0 +1,119 @@
+package com.ortecfinance.tasklist.events;
+
+import com.ortecfinance.tasklist.repository.InMemoryTaskRepository;
+import com.ortecfinance.tasklist.service.TaskService;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ChangeFeedTest {
+
+    @Test
+    void service_writes_are_published_in_order() throws Exception {
+        ChangeFeed feed = new ChangeFeed();
+        TaskService service = new TaskService(new InMemoryTaskRepository(), feed);
+        Recorder recorder = new Recorder();
+        feed.subscribe(0, recorder);
+
+        service.addProject("secrets");
+        service.addProject("secrets");
+        service.addTask("secrets", "Eat more donuts.");
+        service.setTaskDone(1, true);
+        service.setTaskDeadline(1, LocalDate.of(2025, 12, 31));
+
+        assertThat(recorder.take(4), contains(
+                new TaskEvent.ProjectAdded("secrets"),
+                new TaskEvent.TaskAdded("secrets", 1, "Eat more donuts."),
+                new TaskEvent.DoneChanged("secrets", 1, true),
+                new TaskEvent.DeadlineChanged("secrets", 1, LocalDate.of(2025, 12, 31))));
+    }
+
+    @Test
+    void a_reconnecting_subscriber_resumes_after_its_last_event_id() throws Exception {
+        ChangeFeed feed = new ChangeFeed(4, 100);
+        for (int i = 1; i <= 6; i++) {
+            feed.publish(new TaskEvent.ProjectAdded("project-" + i));
+        }
+
+        Recorder resumed = new Recorder();
+        feed.subscribe(3, resumed);
+        feed.publish(new TaskEvent.ProjectAdded("project-7"));
+        assertThat(resumed.take(4), contains(
+                new TaskEvent.ProjectAdded("project-4"),
+                new TaskEvent.ProjectAdded("project-5"),
+                new TaskEvent.ProjectAdded("project-6"),
+                new TaskEvent.ProjectAdded("project-7")));
+
+        // event 2 has been overwritten in the history of four
+        Recorder tooOld = new Recorder();
+        feed.subscribe(1, tooOld);
+        assertThat(tooOld.closed.get(5, TimeUnit.SECONDS), is(ChangeFeed.CloseReason.HISTORY_LOST));
+    }
+
+    @Test
+    void a_slow_subscriber_is_evicted_without_holding_up_publishers() throws Exception {
+        ChangeFeed feed = new ChangeFeed(100, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Thread> closedOn = new CompletableFuture<>();
+        Recorder stuck = new Recorder() {
+            @Override
+            public void onClose(ChangeFeed.CloseReason reason) {
+                closedOn.complete(Thread.currentThread());
+                super.onClose(reason);
+            }
+
+            @Override
+            public void onEvent(ChangeFeed.Entry entry) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        feed.subscribe(0, stuck);
+
+        for (int i = 0; i < 10; i++) {
+            feed.publish(new TaskEvent.ProjectAdded("project-" + i));
+        }
+
+        assertThat(stuck.closed.get(5, TimeUnit.SECONDS), is(ChangeFeed.CloseReason.TOO_SLOW));
+        assertThat(feed.subscriberCount(), is(0));
+        // the publisher only interrupted the drainer, which closed the subscriber itself
+        assertThat(closedOn.get(), is(not(Thread.currentThread())));
+        release.countDown();
+    }
+
+    private static class Recorder implements ChangeFeed.Subscriber {
+        final BlockingQueue<TaskEvent> events = new LinkedBlockingQueue<>();
+        final CompletableFuture<ChangeFeed.CloseReason> closed = new CompletableFuture<>();
+
+        @Override
+        public void onEvent(ChangeFeed.Entry entry) {
+            events.add(entry.event());
+        }
+
+        @Override
+        public void onClose(ChangeFeed.CloseReason reason) {
+            closed.complete(reason);
+        }
+
+        List<TaskEvent> take(int count) throws InterruptedException {
+            List<TaskEvent> taken = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                TaskEvent event = events.poll(5, TimeUnit.SECONDS);
+                if (event == null) {
+                    break;
+                }
+                taken.add(event);
+            }
+            return taken;
+        }
+    }
+}
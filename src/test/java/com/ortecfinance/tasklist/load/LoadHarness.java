@@ -0,0 +1,248 @@
+package com.ortecfinance.tasklist.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Closed-loop HTTP load generator for the REST API. Each worker picks an operation by weight, sends it,
+// waits for the response and records the latency in that operation's histogram. Only the measurement
+// phase is recorded; the warmup phase runs the same mix to get the server's JIT and caches going.
+//
+// Closed-loop means a slow response also delays the worker's next request, so tail latencies are
+// those seen by the workers, not by an open stream of arriving users.
+public final class LoadHarness {
+
+    private static final DateTimeFormatter DEADLINE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    // histograms track 1 µs to 60 s with 3 significant digits
+    private static final long MAX_LATENCY_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    public enum Operation {
+        CREATE_TASK, SET_DEADLINE, VIEW_BY_DEADLINE, LIST_PROJECTS
+    }
+
+    public record Config(URI baseUri, int concurrency, Duration warmup, Duration duration,
+                         Map<Operation, Integer> mix, int projects, int seedTasks) {
+
+        public Config {
+            if (concurrency <= 0 || projects <= 0 || seedTasks < 0) {
+                throw new IllegalArgumentException("Concurrency and projects must be positive, seed tasks not negative.");
+            }
+            // deadlines are set on existing task IDs, so there has to be one before the first request
+            if (mix.getOrDefault(Operation.SET_DEADLINE, 0) > 0 && seedTasks == 0) {
+                throw new IllegalArgumentException("SET_DEADLINE needs at least one seed task.");
+            }
+        }
+
+        // loadtest.* system properties, e.g. -Dloadtest.concurrency=64 -Dloadtest.mix=CREATE_TASK:20,VIEW_BY_DEADLINE:80
+        public static Config fromSystemProperties(URI baseUri) {
+            return new Config(baseUri,
+                    Integer.getInteger("loadtest.concurrency", 32),
+                    Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 5)),
+                    Duration.ofSeconds(Long.getLong("loadtest.seconds", 20)),
+                    parseMix(System.getProperty("loadtest.mix",
+                            "CREATE_TASK:30,SET_DEADLINE:30,VIEW_BY_DEADLINE:30,LIST_PROJECTS:10")),
+                    Integer.getInteger("loadtest.projects", 20),
+                    Integer.getInteger("loadtest.seed-tasks", 10_000));
+        }
+
+        static Map<Operation, Integer> parseMix(String mix) {
+            Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+            for (String part : mix.split(",")) {
+                String[] weight = part.trim().split(":");
+                weights.put(Operation.valueOf(weight[0].trim()), Integer.parseInt(weight[1].trim()));
+            }
+            return weights;
+        }
+    }
+
+    public record EndpointResult(Operation operation, long requests, long errors, double requestsPerSecond,
+                                 long p50Micros, long p90Micros, long p99Micros, long p999Micros, long maxMicros) {}
+
+    public record Report(Instant startedAt, Config config, List<EndpointResult> endpoints) {}
+
+    private final Config config;
+    private final HttpClient client;
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Operation[] weighted;
+    private final AtomicLong tasksCreated = new AtomicLong();
+    private volatile boolean recording;
+
+    public LoadHarness(Config config) {
+        this.config = config;
+        this.client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        List<Operation> slots = new ArrayList<>();
+        config.mix().forEach((operation, weight) -> {
+            latencies.put(operation, new ConcurrentHistogram(1, MAX_LATENCY_MICROS, 3));
+            errors.put(operation, new LongAdder());
+            for (int i = 0; i < weight; i++) {
+                slots.add(operation);
+            }
+        });
+        if (slots.isEmpty()) {
+            throw new IllegalArgumentException("The operation mix is empty.");
+        }
+        this.weighted = slots.toArray(Operation[]::new);
+    }
+
+    public Report run() throws Exception {
+        seed();
+        Instant startedAt = Instant.now();
+        runPhase(config.warmup());
+        latencies.values().forEach(Histogram::reset);
+        errors.values().forEach(LongAdder::reset);
+        recording = true;
+        long start = System.nanoTime();
+        runPhase(config.duration());
+        double seconds = (System.nanoTime() - start) / 1e9;
+        recording = false;
+
+        List<EndpointResult> results = new ArrayList<>();
+        latencies.forEach((operation, histogram) -> results.add(new EndpointResult(operation,
+                histogram.getTotalCount(), errors.get(operation).sum(), histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90),
+                histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9),
+                histogram.getMaxValue())));
+        return new Report(startedAt, config, results);
+    }
+
+    // Writes the report as JSON, so runs can be diffed or plotted against each other
+    public static Path writeReport(Report report, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve("load-" + report.startedAt().toEpochMilli() + ".json");
+        new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .writerWithDefaultPrettyPrinter()
+                .writeValue(file.toFile(), report);
+        return file;
+    }
+
+    public static String format(Report report) {
+        StringBuilder out = new StringBuilder(String.format("%-18s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us"));
+        for (EndpointResult r : report.endpoints()) {
+            out.append(String.format("%-18s %9d %7d %9.0f %9d %9d %9d %9d %9d%n", r.operation(), r.requests(),
+                    r.errors(), r.requestsPerSecond(), r.p50Micros(), r.p90Micros(), r.p99Micros(),
+                    r.p999Micros(), r.maxMicros()));
+        }
+        return out.toString();
+    }
+
+    private void seed() throws IOException, InterruptedException {
+        for (int p = 0; p < config.projects(); p++) {
+            check(send(post("/projects", "{\"name\":\"" + project(p) + "\"}")));
+        }
+        List<String> tasks = new ArrayList<>(config.seedTasks());
+        for (int i = 0; i < config.seedTasks(); i++) {
+            tasks.add("{\"project\":\"" + project(i % config.projects()) + "\",\"description\":\"Seed task " + i + "\"}");
+            if (tasks.size() == 5_000 || i == config.seedTasks() - 1) {
+                check(send(post("/projects/tasks/batch", "{\"tasks\":[" + String.join(",", tasks) + "]}")));
+                tasksCreated.addAndGet(tasks.size());
+                tasks.clear();
+            }
+        }
+    }
+
+    private void runPhase(Duration duration) throws InterruptedException, ExecutionException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Callable<Void>> loops = Collections.nCopies(config.concurrency(), () -> {
+            work(deadline);
+            return null;
+        });
+        try (ExecutorService workers = Executors.newFixedThreadPool(config.concurrency())) {
+            // a worker that died would quietly lower the load, so its failure fails the run
+            for (Future<Void> loop : workers.invokeAll(loops)) {
+                loop.get();
+            }
+        }
+    }
+
+    private void work(long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            Operation operation = weighted[random.nextInt(weighted.length)];
+            HttpRequest request = request(operation, random);
+            long start = System.nanoTime();
+            boolean ok;
+            try {
+                ok = send(request).statusCode() < 400;
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (operation == Operation.CREATE_TASK && ok) {
+                tasksCreated.incrementAndGet();
+            }
+            if (recording) {
+                long micros = Math.max(1, (System.nanoTime() - start) / 1_000);
+                latencies.get(operation).recordValue(Math.min(micros, MAX_LATENCY_MICROS));
+                if (!ok) {
+                    errors.get(operation).increment();
+                }
+            }
+        }
+    }
+
+    private HttpRequest request(Operation operation, ThreadLocalRandom random) {
+        String project = project(random.nextInt(config.projects()));
+        return switch (operation) {
+            case CREATE_TASK -> post("/projects/" + project + "/tasks", "{\"description\":\"Load task\"}");
+            case SET_DEADLINE -> {
+                long id = 1 + random.nextLong(tasksCreated.get());
+                String date = LocalDate.now().plusDays(random.nextInt(60)).format(DEADLINE_FORMAT);
+                yield HttpRequest.newBuilder(uri("/projects/" + project + "/tasks/" + id + "?deadline=" + date))
+                        .PUT(HttpRequest.BodyPublishers.noBody()).build();
+            }
+            case VIEW_BY_DEADLINE -> HttpRequest.newBuilder(uri("/projects/view_by_deadline")).GET().build();
+            case LIST_PROJECTS -> HttpRequest.newBuilder(uri("/projects")).GET().build();
+        };
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpResponse<Void> send(HttpRequest request) throws IOException, InterruptedException {
+        // bodies are read and dropped, so transfer time is part of the latency
+        return client.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private URI uri(String path) {
+        return config.baseUri().resolve(path);
+    }
+
+    private static String project(int index) {
+        return "project-" + index;
+    }
+
+    private static void check(HttpResponse<?> response) {
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("Seeding failed with status " + response.statusCode());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.ortecfinance.tasklist.load;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+// Runs the load harness against the full application on a random local port.
+// Off by default: mvn test -Dtest=LoadTest -Dloadtest=true [-Dloadtest.concurrency=64 -Dloadtest.seconds=60 ...]
+// Reports are written to target/load-reports as JSON.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "logging.level.com.ortecfinance.tasklist.controller=warn")
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+public class LoadTest {
+
+    @LocalServerPort
+    int port;
+
+    @Test
+    void mixed_traffic() throws Exception {
+        LoadHarness.Config config = LoadHarness.Config.fromSystemProperties(URI.create("http://localhost:" + port));
+        LoadHarness.Report report = new LoadHarness(config).run();
+
+        System.out.print(LoadHarness.format(report));
+        System.out.println("report: " + LoadHarness.writeReport(report, Path.of("target", "load-reports")));
+
+        for (LoadHarness.EndpointResult endpoint : report.endpoints()) {
+            assertThat(endpoint.operation() + " errors", endpoint.errors(), is(0L));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.ortecfinance.tasklist.metrics;
+
+import com.ortecfinance.tasklist.repository.ConcurrentTaskRepository;
+import com.ortecfinance.tasklist.repository.TaskRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class MeteredTaskRepositoryTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 15);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TaskRepository repository = new MeteredTaskRepository(new ConcurrentTaskRepository(), registry);
+
+    @Test
+    void times_each_operation_and_counts_misses() {
+        repository.addProject("secrets");
+        long id = repository.addTask("secrets", "Eat more donuts.").getId();
+        repository.setTaskDone(id, true);
+        repository.setTaskDone(999, true);
+        repository.setTasksDone(List.of(new TaskRepository.DoneChange(id, false), new TaskRepository.DoneChange(998, true)));
+
+        assertThat(registry.get("tasklist.repository").tag("operation", "addTask").timer().count(), is(1L));
+        assertThat(registry.get("tasklist.repository").tag("operation", "setTaskDone").timer().count(), is(2L));
+        assertThat(registry.get("tasklist.repository.misses").tag("operation", "setTaskDone").counter().count(), is(1.0));
+        assertThat(registry.get("tasklist.repository.misses").tag("operation", "setTasksDone").counter().count(), is(1.0));
+    }
+
+    @Test
+    void gauges_follow_the_repository_and_the_day() {
+        new TaskGauges(repository, Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC))
+                .bindTo(registry);
+        repository.addProject("secrets");
+        repository.addProject("training");
+        long late = repository.addTask("secrets", "Eat more donuts.").getId();
+        long finished = repository.addTask("training", "SOLID").getId();
+        repository.addTask("training", "Coupling and Cohesion");
+        repository.setTaskDeadline(late, TODAY.minusDays(1));
+        repository.setTaskDeadline(finished, TODAY.minusDays(1));
+        repository.setTaskDone(finished, true);
+
+        assertThat(gauge("tasklist.projects"), is(2.0));
+        assertThat(gauge("tasklist.tasks"), is(3.0));
+        assertThat(gauge("tasklist.tasks.done"), is(1.0));
+        assertThat(gauge("tasklist.tasks.overdue"), is(1.0));
+
+        repository.setTaskDone(late, true);
+        assertThat(gauge("tasklist.tasks.overdue"), is(0.0));
+    }
+
+    private double gauge(String name) {
+        return registry.get(name).gauge().value();
+    }
+}
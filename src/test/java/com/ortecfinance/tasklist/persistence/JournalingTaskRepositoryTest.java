@@ -0,0 +1,192 @@
+package com.ortecfinance.tasklist.persistence;
+
+import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.repository.ConcurrentTaskRepository;
+import com.ortecfinance.tasklist.repository.TaskRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JournalingTaskRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void it_replays_the_journal_on_reopen() throws IOException {
+        Path journal = dir.resolve("tasks.journal");
+        LocalDate deadline = LocalDate.of(2025, 12, 31);
+
+        try (JournalingTaskRepository repository = open(journal)) {
+            repository.addProject("secrets");
+            repository.addProject("training");
+            repository.addTask("secrets", "Eat more donuts.");
+            Task task = repository.addTask("training", "SOLID");
+            repository.setTaskDone(task.getId(), true);
+            repository.setTaskDeadline(task.getId(), deadline);
+        }
+
+        try (JournalingTaskRepository repository = open(journal)) {
+            assertThat(repository.getAllProjectsWithTasks().keySet(), contains("secrets", "training"));
+            Task task = repository.findTaskById(2).orElseThrow();
+            assertThat(task.getDescription(), is("SOLID"));
+            assertThat(task.isDone(), is(true));
+            assertThat(task.getDeadline(), is(deadline));
+            assertThat(repository.getTasksDueOn(deadline).get("training"), hasSize(1));
+
+            // new IDs continue after the replayed ones
+            assertThat(repository.addTask("secrets", "Destroy all humans.").getId(), is(3L));
+        }
+    }
+
+    @Test
+    void a_restored_task_replays_with_its_version() throws IOException {
+        Path journal = dir.resolve("tasks.journal");
+        LocalDate deadline = LocalDate.of(2025, 12, 31);
+
+        try (JournalingTaskRepository repository = open(journal)) {
+            repository.addProject("secrets");
+            repository.restoreTask("secrets", new Task(7, "Eat more donuts.", true, deadline, 5));
+        }
+
+        try (JournalingTaskRepository repository = open(journal)) {
+            Task task = repository.findTaskById(7).orElseThrow();
+            assertThat(task.getDescription(), is("Eat more donuts."));
+            assertThat(task.isDone(), is(true));
+            assertThat(task.getDeadline(), is(deadline));
+            assertThat(task.getVersion(), is(5L));
+        }
+    }
+
+    @Test
+    void it_drops_a_torn_tail_left_by_a_crash() throws IOException {
+        Path journal = dir.resolve("tasks.journal");
+        try (JournalingTaskRepository repository = open(journal)) {
+            repository.addProject("secrets");
+            repository.addTask("secrets", "Eat more donuts.");
+        }
+        long intact = Files.size(journal);
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 40, 1, 2, 3}));
+        }
+
+        try (JournalingTaskRepository repository = open(journal)) {
+            assertThat(repository.getAllProjectsWithTasks().get("secrets"), hasSize(1));
+            assertThat(Files.size(journal), is(intact));
+            repository.addTask("secrets", "Destroy all humans.");
+        }
+        try (JournalingTaskRepository repository = open(journal)) {
+            assertThat(repository.getAllProjectsWithTasks().get("secrets"), hasSize(2));
+        }
+    }
+
+    @Test
+    void concurrent_writers_share_fsyncs() throws Exception {
+        Path path = dir.resolve("tasks.journal");
+        TaskRepository delegate = new ConcurrentTaskRepository();
+        int threads = 8;
+        int tasksPerThread = 200;
+
+        try (JournalingTaskRepository repository =
+                     JournalingTaskRepository.open(path, delegate, Duration.ofMillis(2))) {
+            repository.addProject("shared");
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < tasksPerThread; i++) {
+                        repository.addTask("shared", "task " + i);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            pool.shutdown();
+            Journal journal = repository.journal();
+
+            assertThat(journal.lastSequence(), is(1L + threads * tasksPerThread));
+            assertThat(journal.flushCount(), is(lessThan(journal.lastSequence())));
+        }
+
+        try (JournalingTaskRepository reopened = open(path)) {
+            assertThat(reopened.getAllProjectsWithTasks().get("shared"), hasSize(threads * tasksPerThread));
+        }
+    }
+
+    @Test
+    void a_batch_is_journaled_as_one_record_and_replayed() throws IOException {
+        Path path = dir.resolve("tasks.journal");
+        List<TaskRepository.NewTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            tasks.add(new TaskRepository.NewTask(i % 2 == 0 ? "secrets" : "training", "task " + i));
+        }
+
+        try (JournalingTaskRepository repository = open(path)) {
+            repository.addProject("secrets");
+            repository.addProject("training");
+            long before = repository.journal().lastSequence();
+
+            List<Optional<Task>> added = repository.addTasks(tasks);
+            repository.setTasksDone(List.of(new TaskRepository.DoneChange(added.get(0).orElseThrow().getId(), true),
+                    new TaskRepository.DoneChange(42_000, true)));
+
+            assertThat(repository.journal().lastSequence(), is(before + 2));
+        }
+
+        try (JournalingTaskRepository repository = open(path)) {
+            assertThat(repository.getAllProjectsWithTasks().get("secrets"), hasSize(500));
+            assertThat(repository.getAllProjectsWithTasks().get("training"), hasSize(500));
+            assertThat(repository.findTaskById(1).orElseThrow().isDone(), is(true));
+        }
+    }
+
+    @Test
+    void after_a_failed_flush_writes_are_rejected_before_they_reach_memory() throws IOException {
+        Path path = dir.resolve("tasks.journal");
+        // a channel that is already closed fails every write and fsync, like a disk that went away
+        FileChannel failing = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        failing.close();
+        Journal journal = new Journal(path, failing, 0, Duration.ZERO);
+
+        try (JournalingTaskRepository repository = new JournalingTaskRepository(new ConcurrentTaskRepository(),
+                journal, new JournalingTaskRepository.Options(path, null, Duration.ZERO, null))) {
+            // in flight when the flush fails: applied, but the caller is told it isn't durable
+            assertThrows(UncheckedIOException.class, () -> repository.addProject("secrets"));
+            long sequence = journal.lastSequence();
+            long version = repository.version();
+
+            assertThrows(UncheckedIOException.class, () -> repository.addProject("training"));
+            assertThrows(UncheckedIOException.class, () -> repository.addTasks(
+                    List.of(new TaskRepository.NewTask("secrets", "Eat more donuts."))));
+            assertThrows(UncheckedIOException.class, () -> journal.append(new Mutation.AddProject("training")));
+
+            assertThat(repository.hasProject("training"), is(false));
+            assertThat(repository.getAllProjectsWithTasks().get("secrets"), is(empty()));
+            assertThat(repository.version(), is(version));
+            assertThat(journal.lastSequence(), is(sequence));
+        }
+    }
+
+    private static JournalingTaskRepository open(Path journal) throws IOException {
+        return JournalingTaskRepository.open(journal, new ConcurrentTaskRepository(), Duration.ZERO);
+    }
+}
\ No newline at end of file
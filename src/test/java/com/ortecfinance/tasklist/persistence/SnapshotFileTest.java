@@ -0,0 +1,97 @@
+package com.ortecfinance.tasklist.persistence;
+
+import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.repository.ConcurrentTaskRepository;
+import com.ortecfinance.tasklist.repository.TaskRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class SnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void it_restarts_from_the_snapshot_plus_the_journal_tail() throws IOException {
+        LocalDate deadline = LocalDate.of(2025, 12, 31);
+
+        try (JournalingTaskRepository repository = open()) {
+            repository.addProject("secrets");
+            Task task = repository.addTask("secrets", "Eat more donuts.");
+            repository.setTaskDeadline(task.getId(), deadline);
+            repository.checkpoint();
+
+            // written after the checkpoint, so only the journal has them
+            repository.setTaskDone(task.getId(), true);
+            repository.addProject("training");
+            repository.addTask("training", "SOLID");
+        }
+
+        assertThat(journalSegments(), is(0L));
+        try (JournalingTaskRepository repository = open()) {
+            Task task = repository.findTaskById(1).orElseThrow();
+            assertThat(task.getDeadline(), is(deadline));
+            assertThat(task.isDone(), is(true));
+            // version 2 from the snapshot, then the journaled done change
+            assertThat(task.getVersion(), is(3L));
+            assertThat(repository.getAllProjectsWithTasks().keySet(), contains("secrets", "training"));
+            assertThat(repository.addTask("training", "Outside-In TDD").getId(), is(3L));
+        }
+    }
+
+    // load time by size is measured by SnapshotBenchmark; this only checks a large snapshot restores exactly
+    @Test
+    void a_large_snapshot_restores_every_task() throws IOException {
+        int taskCount = 20_000;
+        Path snapshot = dir.resolve("large.snapshot");
+        TaskRepository source = new ConcurrentTaskRepository();
+        for (int p = 0; p < 10; p++) {
+            source.addProject("project-" + p);
+        }
+        for (int i = 0; i < taskCount; i++) {
+            Task task = source.addTask("project-" + (i % 10), "Recurring chore number " + i + " ☕");
+            if (i % 3 == 0) {
+                source.setTaskDeadline(task.getId(), LocalDate.of(2025, 1, 1).plusDays(i % 365));
+            }
+            if (i % 7 == 0) {
+                source.setTaskDone(task.getId(), true);
+            }
+        }
+        SnapshotFile.write(snapshot, source.snapshot(), 42);
+
+        TaskRepository restored = new ConcurrentTaskRepository();
+        assertThat(SnapshotFile.load(snapshot, restored), is(42L));
+
+        assertThat(restored.getAllProjectsWithTasks().keySet(), is(source.getAllProjectsWithTasks().keySet()));
+        for (long id = 1; id <= taskCount; id++) {
+            Task expected = source.findTaskById(id).orElseThrow();
+            Task actual = restored.findTaskById(id).orElseThrow();
+            assertThat(actual.getDescription(), is(expected.getDescription()));
+            assertThat(actual.isDone(), is(expected.isDone()));
+            assertThat(actual.getDeadline(), is(expected.getDeadline()));
+            assertThat(actual.getVersion(), is(expected.getVersion()));
+            assertThat(restored.findProjectByTaskId(id), is(source.findProjectByTaskId(id)));
+        }
+    }
+
+    private JournalingTaskRepository open() throws IOException {
+        return JournalingTaskRepository.open(new ConcurrentTaskRepository(), new JournalingTaskRepository.Options(
+                dir.resolve("tasks.journal"), dir.resolve("tasks.snapshot"), Duration.ZERO, null));
+    }
+
+    private long journalSegments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().matches("tasks\\.journal\\.\\d+")).count();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.ortecfinance.tasklist.replication;
+
+import com.ortecfinance.tasklist.events.ChangeFeed;
+import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.repository.ConcurrentTaskRepository;
+import com.ortecfinance.tasklist.service.SearchHit;
+import com.ortecfinance.tasklist.service.TaskService;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ReplicationTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(10);
+    private static final Duration HEARTBEAT = Duration.ofMillis(20);
+
+    @Test
+    void a_follower_loads_the_primary_state_and_then_applies_its_writes() throws Exception {
+        TaskService primary = new TaskService(new ConcurrentTaskRepository());
+        primary.addProject("secrets");
+        primary.addTask("secrets", "Eat more donuts.");
+
+        ReplicaTaskRepository replica = new ReplicaTaskRepository();
+        TaskService follower = new TaskService(replica, new ChangeFeed());
+        try (ReplicationServer server = new ReplicationServer(primary, loopback(0), HEARTBEAT);
+             ReplicaClient client = new ReplicaClient(follower, replica, loopback(server.port()), HEARTBEAT,
+                     Duration.ofMillis(50))) {
+            assertThat(client.awaitApplied(server.position(), WAIT), is(true));
+            assertThat(render(follower.getAllProjectsWithTasks()), is(render(primary.getAllProjectsWithTasks())));
+
+            primary.addProject("training");
+            primary.addTask("training", "Four Elements of Simple Design");
+            primary.setTaskDone(1, true);
+            primary.setTaskDeadline(2, LocalDate.of(2025, 11, 10));
+            ReplicationToken written = server.position();
+
+            assertThat(client.awaitApplied(written, WAIT), is(true));
+            assertThat(render(follower.getAllProjectsWithTasks()), is(render(primary.getAllProjectsWithTasks())));
+            assertThat(follower.search("simple", 5).stream().map(SearchHit::project).toList(), contains("training"));
+            // nothing the follower hasn't seen can be waited for successfully
+            assertThat(client.awaitApplied(new ReplicationToken(written.epoch(), written.eventId() + 1),
+                    Duration.ofMillis(50)), is(false));
+
+            ReplicationStatus status = client.status();
+            assertThat(status.eventId(), is(written.eventId()));
+            assertThat(status.lagEvents(), is(0L));
+            assertThat(status.connected(), is(true));
+            assertThat(server.status().followers(), is(1));
+        }
+    }
+
+    @Test
+    void a_follower_reloads_when_the_primary_restarts() throws Exception {
+        ReplicaTaskRepository replica = new ReplicaTaskRepository();
+        TaskService follower = new TaskService(replica, new ChangeFeed());
+
+        TaskService first = new TaskService(new ConcurrentTaskRepository());
+        first.addProject("secrets");
+        ReplicationServer firstRun = new ReplicationServer(first, loopback(0), HEARTBEAT);
+        int port = firstRun.port();
+        try (ReplicaClient client = new ReplicaClient(follower, replica, loopback(port), HEARTBEAT, Duration.ofMillis(50))) {
+            assertThat(client.awaitApplied(firstRun.position(), WAIT), is(true));
+            long versionBefore = follower.getVersion();
+            ReplicationToken oldToken = firstRun.position();
+            firstRun.close();
+
+            TaskService second = new TaskService(new ConcurrentTaskRepository());
+            second.addProject("training");
+            second.addTask("training", "SOLID");
+            try (ReplicationServer secondRun = new ReplicationServer(second, loopback(port), HEARTBEAT)) {
+                assertThat(client.awaitApplied(secondRun.position(), WAIT), is(true));
+                assertThat(render(follower.getAllProjectsWithTasks()), is(render(second.getAllProjectsWithTasks())));
+                // tokens of the earlier run are covered, and versions never go back
+                assertThat(client.awaitApplied(oldToken, Duration.ZERO), is(true));
+                assertThat(follower.getVersion(), greaterThan(versionBefore));
+            }
+        }
+    }
+
+    @Test
+    void a_follower_gives_up_on_a_primary_that_stops_sending() throws Exception {
+        ReplicaTaskRepository replica = new ReplicaTaskRepository();
+        TaskService follower = new TaskService(replica, new ChangeFeed());
+        // accepts connections and then says nothing, like a hung primary
+        try (ServerSocket silent = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+             ReplicaClient client = new ReplicaClient(follower, replica, loopback(silent.getLocalPort()), HEARTBEAT,
+                     Duration.ofMillis(50))) {
+            silent.setSoTimeout((int) WAIT.toMillis());
+            try (Socket first = silent.accept()) {
+                long connectedAt = System.nanoTime();
+                // the follower drops the connection it stopped hearing on and dials again
+                try (Socket second = silent.accept()) {
+                    assertThat(Duration.ofNanos(System.nanoTime() - connectedAt),
+                            is(greaterThanOrEqualTo(HEARTBEAT.multipliedBy(5))));
+                    // only the hello, then the end of the stream: the follower closed its side
+                    first.setSoTimeout((int) WAIT.toMillis());
+                    assertThat(first.getInputStream().readAllBytes().length, is(greaterThan(0)));
+                }
+            }
+            assertThat(client.position(), is(nullValue()));
+        }
+    }
+
+    private static InetSocketAddress loopback(int port) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    private static List<String> render(Map<String, List<Task>> projects) {
+        List<String> lines = new ArrayList<>();
+        projects.forEach((project, tasks) -> tasks.forEach(task -> lines.add(
+                project + "/" + task.getId() + "/" + task.getDescription() + "/" + task.isDone() + "/" + task.getDeadline()
+                        + "/v" + task.getVersion())));
+        projects.keySet().forEach(project -> lines.add(project));
+        return lines;
+    }
+}
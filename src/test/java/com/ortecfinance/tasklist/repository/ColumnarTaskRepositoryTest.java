@@ -0,0 +1,111 @@
+package com.ortecfinance.tasklist.repository;
+
+import com.ortecfinance.tasklist.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ColumnarTaskRepositoryTest {
+
+    @Test
+    void it_answers_like_the_object_store_for_the_same_operations() {
+        TaskRepository expected = new InMemoryTaskRepository();
+        TaskRepository actual = new ColumnarTaskRepository();
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2025, 11, 1);
+
+        for (String project : List.of("secrets", "training", "chores")) {
+            expected.addProject(project);
+            actual.addProject(project);
+        }
+        for (int i = 0; i < 3_000; i++) {
+            int operation = random.nextInt(5);
+            long id = 1 + random.nextInt(i + 1);
+            if (operation <= 1) {
+                String project = List.of("secrets", "training", "chores").get(random.nextInt(3));
+                expected.addTask(project, "task " + i);
+                actual.addTask(project, "task " + i);
+            } else if (operation == 2) {
+                LocalDate deadline = random.nextInt(4) == 0 ? null : start.plusDays(random.nextInt(10));
+                assertThat(actual.setTaskDeadline(id, deadline).isPresent(),
+                        is(expected.setTaskDeadline(id, deadline).isPresent()));
+            } else if (operation == 3) {
+                boolean done = random.nextBoolean();
+                assertThat(actual.setTaskDone(id, done).isPresent(), is(expected.setTaskDone(id, done).isPresent()));
+            } else {
+                List<TaskRepository.NewTask> batch = List.of(new TaskRepository.NewTask("chores", "batch " + i),
+                        new TaskRepository.NewTask("missing", "batch " + i));
+                assertThat(render(Map.of("batch", actual.addTasks(batch).stream().flatMap(Optional::stream).toList())),
+                        is(render(Map.of("batch", expected.addTasks(batch).stream().flatMap(Optional::stream).toList()))));
+                List<TaskRepository.DoneChange> changes = List.of(new TaskRepository.DoneChange(id, true),
+                        new TaskRepository.DoneChange(id + 1, false));
+                assertThat(actual.setTasksDone(changes).stream().map(Optional::isPresent).toList(),
+                        is(expected.setTasksDone(changes).stream().map(Optional::isPresent).toList()));
+            }
+        }
+
+        assertThat(render(actual.getAllProjectsWithTasks()), is(render(expected.getAllProjectsWithTasks())));
+        assertThat(render(actual.getTasksWithoutDeadline()), is(render(expected.getTasksWithoutDeadline())));
+        assertThat(render(actual.getTasksDueOn(start.plusDays(3))), is(render(expected.getTasksDueOn(start.plusDays(3)))));
+        assertThat(actual.getTasksByDeadline().keySet(), is(expected.getTasksByDeadline().keySet()));
+        assertThat(actual.countTasksByDeadline(start.plusDays(2), start.plusDays(6)),
+                is(expected.countTasksByDeadline(start.plusDays(2), start.plusDays(6))));
+        expected.getTasksByDeadline().forEach((date, projects) ->
+                assertThat(render(actual.getTasksByDeadline().get(date)), is(render(projects))));
+        assertThat(render(Map.of("page", actual.getTasks("training", 100, 5))),
+                is(render(Map.of("page", expected.getTasks("training", 100, 5)))));
+    }
+
+    @Test
+    void task_views_are_detached_from_the_store() {
+        ColumnarTaskRepository repository = new ColumnarTaskRepository();
+        repository.addProject("secrets");
+        Task view = repository.addTask("secrets", "Eat more donuts.");
+
+        view.setDone(true);
+        repository.setTaskDeadline(view.getId(), LocalDate.of(2025, 12, 31));
+
+        Task stored = repository.findTaskById(view.getId()).orElseThrow();
+        assertThat(stored.isDone(), is(false));
+        assertThat(stored.getDeadline(), is(LocalDate.of(2025, 12, 31)));
+        assertThat(repository.findProjectByTaskId(view.getId()).orElseThrow(), is("secrets"));
+    }
+
+    @Test
+    void snapshots_copy_only_the_projects_that_changed() {
+        ColumnarTaskRepository repository = new ColumnarTaskRepository();
+        repository.addProject("secrets");
+        repository.addProject("training");
+        repository.addTask("secrets", "Eat more donuts.");
+        repository.addTask("training", "SOLID");
+
+        TaskSnapshot before = repository.snapshot();
+        assertThat(repository.snapshot(), is(sameInstance(before)));
+        repository.setTaskDone(1, true);
+        TaskSnapshot after = repository.snapshot();
+
+        assertThat(after.version(), is(greaterThan(before.version())));
+        assertThat(after.projects().get("training"), is(sameInstance(before.projects().get("training"))));
+        assertThat(before.projects().get("secrets").get(0).isDone(), is(false));
+        assertThat(after.projects().get("secrets").get(0).isDone(), is(true));
+    }
+
+    private static String render(Map<String, List<Task>> projects) {
+        StringBuilder out = new StringBuilder();
+        projects.forEach((name, tasks) -> {
+            out.append(name).append('\n');
+            for (Task task : tasks) {
+                out.append(task.getId()).append(' ').append(task.isDone()).append(' ')
+                        .append(task.getDeadline()).append(' ').append(task.getDescription()).append('\n');
+            }
+        });
+        return out.toString();
+    }
+}
@@ -0,0 +1,184 @@
+package com.ortecfinance.tasklist.repository;
+
+import com.ortecfinance.tasklist.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ConcurrentTaskRepositoryTest {
+
+    private static final int THREADS = 8;
+    private static final int TASKS_PER_THREAD = 5_000;
+
+    @Test
+    void concurrent_writers_get_unique_ids_and_lose_no_tasks() throws Exception {
+        ConcurrentTaskRepository repository = new ConcurrentTaskRepository();
+        repository.addProject("shared");
+        repository.addProject("other");
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String project = t % 2 == 0 ? "shared" : "other";
+            writers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < TASKS_PER_THREAD; i++) {
+                    repository.addTask(project, "task " + i);
+                }
+                return null;
+            }));
+        }
+        // a reader running alongside the writers must never fail on concurrent modification
+        Future<?> reader = pool.submit(() -> {
+            start.await();
+            while (writers.stream().anyMatch(w -> !w.isDone())) {
+                for (List<Task> tasks : repository.getAllProjectsWithTasks().values()) {
+                    for (Task task : tasks) {
+                        task.getId();
+                    }
+                }
+            }
+            return null;
+        });
+
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        reader.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        Map<String, List<Task>> all = repository.getAllProjectsWithTasks();
+        Set<Long> ids = new HashSet<>();
+        all.values().forEach(tasks -> tasks.forEach(task -> ids.add(task.getId())));
+
+        assertThat(ids, hasSize(THREADS * TASKS_PER_THREAD));
+        assertThat(all.get("shared"), hasSize(THREADS / 2 * TASKS_PER_THREAD));
+        assertThat(repository.findTaskById(THREADS * TASKS_PER_THREAD).isPresent(), is(true));
+    }
+
+    @Test
+    void compare_and_set_updates_to_one_task_are_never_lost() throws Exception {
+        int updatesPerThread = 200;
+        // the columnar store has no conditional updates (see ColumnarTaskRepository)
+        for (TaskRepository repository : List.of(new ConcurrentTaskRepository(), new PartitionedTaskRepository(2))) {
+            repository.addProject("shared");
+            long id = repository.addTask("shared", "Eat more donuts.").getId();
+
+            ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> writers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    int conflicts = 0;
+                    for (int applied = 0; applied < updatesPerThread; ) {
+                        long version = repository.findTaskById(id).orElseThrow().getVersion();
+                        LocalDate deadline = LocalDate.of(2025, 1, 1).plusDays(version);
+                        if (repository.compareAndSetTaskDeadline(id, version, deadline).orElseThrow().applied()) {
+                            applied++;
+                        } else {
+                            conflicts++;
+                        }
+                    }
+                    return conflicts;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            pool.shutdown();
+
+            // every applied update moved the version by exactly one, so none overwrote another
+            Task task = repository.findTaskById(id).orElseThrow();
+            assertThat(task.getVersion(), is(1L + THREADS * updatesPerThread));
+            assertThat(task.getDeadline(), is(LocalDate.of(2025, 1, 1).plusDays(task.getVersion() - 1)));
+
+            // a stale version changes nothing and hands back the current task
+            TaskRepository.ConditionalUpdate stale = repository.compareAndSetTaskDone(id, 1, true).orElseThrow();
+            assertThat(stale.applied(), is(false));
+            assertThat(stale.task().isDone(), is(false));
+            assertThat(stale.task().getVersion(), is(task.getVersion()));
+            assertThat(repository.compareAndSetTaskDone(999, 1, true), is(Optional.empty()));
+        }
+    }
+
+    @Test
+    void it_keeps_projects_in_creation_order_and_tasks_in_id_order() {
+        ConcurrentTaskRepository repository = new ConcurrentTaskRepository();
+        repository.addProject("secrets");
+        repository.addProject("training");
+        repository.addProject("secrets");
+        repository.addTask("training", "SOLID");
+        repository.addTask("secrets", "Eat more donuts.");
+        repository.addTask("training", "Outside-In TDD");
+
+        Map<String, List<Task>> all = repository.getAllProjectsWithTasks();
+
+        assertThat(all.keySet(), contains("secrets", "training"));
+        assertThat(all.get("training").stream().map(Task::getId).toList(), contains(1L, 3L));
+        assertThat(repository.findProjectByTaskId(2).orElseThrow(), is("secrets"));
+    }
+
+    @Test
+    void snapshots_are_immutable_and_unaffected_by_later_writes() {
+        ConcurrentTaskRepository repository = new ConcurrentTaskRepository();
+        repository.addProject("secrets");
+        Task task = repository.addTask("secrets", "Eat more donuts.");
+
+        TaskSnapshot before = repository.snapshot();
+        repository.setTaskDone(task.getId(), true);
+        repository.addTask("secrets", "Destroy all humans.");
+        TaskSnapshot after = repository.snapshot();
+
+        assertThat(before.projects().get("secrets"), hasSize(1));
+        assertThat(before.projects().get("secrets").get(0).isDone(), is(false));
+        assertThat(after.projects().get("secrets"), hasSize(2));
+        assertThat(after.projects().get("secrets").get(0).isDone(), is(true));
+        assertThat(after.version(), is(greaterThan(before.version())));
+        assertThrows(UnsupportedOperationException.class, () -> before.projects().get("secrets").add(task));
+    }
+
+    @Test
+    void batches_report_per_item_results_and_publish_once_per_project() {
+        ConcurrentTaskRepository repository = new ConcurrentTaskRepository();
+        repository.addProject("secrets");
+        repository.addProject("training");
+        long before = repository.snapshot().version();
+
+        List<Optional<Task>> added = repository.addTasks(List.of(
+                new TaskRepository.NewTask("secrets", "Eat more donuts."),
+                new TaskRepository.NewTask("missing", "Lost task."),
+                new TaskRepository.NewTask("training", "SOLID"),
+                new TaskRepository.NewTask("secrets", "Destroy all humans.")));
+
+        assertThat(added.get(1).isPresent(), is(false));
+        assertThat(repository.snapshot().version(), is(before + 2));
+        assertThat(repository.getAllProjectsWithTasks().get("secrets").stream().map(Task::getDescription).toList(),
+                contains("Eat more donuts.", "Destroy all humans."));
+
+        LocalDate deadline = LocalDate.of(2025, 12, 31);
+        List<Optional<Task>> updated = repository.setTaskDeadlines(List.of(
+                new TaskRepository.DeadlineChange(added.get(0).orElseThrow().getId(), deadline),
+                new TaskRepository.DeadlineChange(42, deadline),
+                new TaskRepository.DeadlineChange(added.get(3).orElseThrow().getId(), deadline)));
+
+        assertThat(updated.get(1).isPresent(), is(false));
+        assertThat(updated.get(2).orElseThrow().getDeadline(), is(deadline));
+        assertThat(repository.getTasksDueOn(deadline).get("secrets"), hasSize(2));
+        assertThat(repository.snapshot().version(), is(before + 3));
+    }
+}
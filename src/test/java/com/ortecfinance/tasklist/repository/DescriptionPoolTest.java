@@ -0,0 +1,79 @@
+package com.ortecfinance.tasklist.repository;
+
+import com.ortecfinance.tasklist.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class DescriptionPoolTest {
+
+    private static final String[] CHORES = {
+            "Water the plants", "Take out the recycling", "Review open pull requests",
+            "Update the sprint board", "Back up the laptop", "Pay the electricity bill",
+    };
+
+    @Test
+    void repeated_descriptions_share_one_instance() {
+        InMemoryTaskRepository repository = new InMemoryTaskRepository();
+        repository.addProject("home");
+        // separate String objects, as they arrive from separate requests
+        Task first = repository.addTask("home", new String("Water the plants"));
+        Task second = repository.addTask("home", new String("Water the plants"));
+
+        assertThat(second.getDescription(), is(sameInstance(first.getDescription())));
+        assertThat(second.getDescription(), is("Water the plants"));
+    }
+
+    @Test
+    void a_templated_corpus_is_held_as_a_few_shared_strings() {
+        DescriptionPool pool = new DescriptionPool();
+        List<String> corpus = corpus(100_000);
+
+        Set<String> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String text : corpus) {
+            distinct.add(pool.intern(text));
+        }
+        // 6 chores and 50 tickets; anything above that is a copy kept after a slot collision
+        assertThat(distinct.size(), is(lessThan(corpus.size() / 1_000)));
+    }
+
+    @Test
+    void the_pool_stays_bounded_when_every_text_is_unique() {
+        DescriptionPool pool = new DescriptionPool(16);
+        List<String> interned = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            interned.add(pool.intern("ticket " + i));
+        }
+
+        // only what the pool still holds comes back as the same instance: at most one text per slot.
+        // Newest first, because a miss takes over the slot of the text it collides with.
+        int stillPooled = 0;
+        for (int i = interned.size() - 1; i >= 0; i--) {
+            String again = pool.intern("ticket " + i);
+            // evicted texts are still correct, just no longer shared
+            assertThat(again, is(interned.get(i)));
+            if (again == interned.get(i)) {
+                stillPooled++;
+            }
+        }
+        assertThat(stillPooled, is(both(greaterThan(0)).and(lessThanOrEqualTo(16))));
+    }
+
+    // recurring chores plus generated tickets, most of which repeat a handful of templates
+    private static List<String> corpus(int size) {
+        Random random = new Random(42);
+        List<String> corpus = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (random.nextInt(4) == 0) {
+                corpus.add("Fix flaky test in module " + random.nextInt(50));
+            } else {
+                // a fresh copy, not the shared literal
+                corpus.add(new String(CHORES[random.nextInt(CHORES.length)]));
+            }
+        }
+        return corpus;
+    }
+}
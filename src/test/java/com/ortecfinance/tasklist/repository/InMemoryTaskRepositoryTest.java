@@ -0,0 +1,72 @@
+package com.ortecfinance.tasklist.repository;
+
+import com.ortecfinance.tasklist.model.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class InMemoryTaskRepositoryTest {
+
+    private InMemoryTaskRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryTaskRepository();
+    }
+
+    @Test
+    void it_finds_task_and_owning_project_by_id() {
+        repository.addProject("secrets");
+        repository.addProject("training");
+        repository.addTask("secrets", "Eat more donuts.");
+        Task task = repository.addTask("training", "SOLID");
+
+        assertThat(repository.findTaskById(task.getId()).orElseThrow(), is(sameInstance(task)));
+        assertThat(repository.findProjectByTaskId(task.getId()).orElseThrow(), is("training"));
+    }
+
+    @Test
+    void it_returns_empty_for_unknown_id() {
+        repository.addProject("secrets");
+        repository.addTask("secrets", "Eat more donuts.");
+
+        assertThat(repository.findTaskById(42).isPresent(), is(false));
+        assertThat(repository.findProjectByTaskId(42).isPresent(), is(false));
+    }
+
+    @Test
+    void it_hands_out_read_only_projects_and_detached_snapshots() {
+        repository.addProject("secrets");
+        Task task = repository.addTask("secrets", "Eat more donuts.");
+
+        TaskSnapshot snapshot = repository.snapshot();
+        repository.setTaskDone(task.getId(), true);
+
+        assertThat(snapshot.projects().get("secrets").get(0).isDone(), is(false));
+        assertThat(repository.snapshot().projects().get("secrets").get(0).isDone(), is(true));
+        assertThrows(UnsupportedOperationException.class,
+                () -> repository.getAllProjectsWithTasks().get("secrets").add(task));
+    }
+
+    // lookup cost by store size is measured by RepositoryBenchmark; this checks the id index stays exact
+    @Test
+    void every_task_is_found_by_id_as_the_store_grows() {
+        repository.addProject("a");
+        repository.addProject("b");
+        int taskCount = 50_000;
+        Task[] added = new Task[taskCount];
+        for (int i = 0; i < taskCount; i++) {
+            added[i] = repository.addTask(i % 2 == 0 ? "a" : "b", "task " + i);
+        }
+
+        for (int i = 0; i < taskCount; i++) {
+            Task task = added[i];
+            assertThat(repository.findTaskById(task.getId()).orElseThrow(), is(sameInstance(task)));
+            assertThat(repository.findProjectByTaskId(task.getId()).orElseThrow(), is(i % 2 == 0 ? "a" : "b"));
+        }
+        assertThat(repository.findTaskById(added[taskCount - 1].getId() + 1).isPresent(), is(false));
+    }
+}
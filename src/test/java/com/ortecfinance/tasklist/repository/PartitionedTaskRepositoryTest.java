@@ -0,0 +1,156 @@
+package com.ortecfinance.tasklist.repository;
+
+import com.ortecfinance.tasklist.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PartitionedTaskRepositoryTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 11, 1);
+
+    @Test
+    void merged_views_match_a_single_index_in_project_order() {
+        TaskRepository partitioned = new PartitionedTaskRepository(4);
+        TaskRepository concurrent = new ConcurrentTaskRepository();
+        List<String> projects = new ArrayList<>();
+        for (int p = 0; p < 20; p++) {
+            projects.add("project-" + p);
+        }
+        Random random = new Random(11);
+        for (TaskRepository repository : List.of(partitioned, concurrent)) {
+            projects.forEach(repository::addProject);
+        }
+        for (int i = 1; i <= 3_000; i++) {
+            String project = projects.get(random.nextInt(projects.size()));
+            LocalDate deadline = random.nextInt(3) == 0 ? null : START.plusDays(random.nextInt(10));
+            boolean done = random.nextInt(4) == 0;
+            for (TaskRepository repository : List.of(partitioned, concurrent)) {
+                repository.addTask(project, "task " + i);
+                repository.setTaskDeadline(i, deadline);
+                repository.setTaskDone(i, done);
+            }
+        }
+
+        assertThat(render(partitioned.getTasksByDeadline()), is(render(concurrent.getTasksByDeadline())));
+        assertThat(render(partitioned.getTasksWithoutDeadline()), is(render(concurrent.getTasksWithoutDeadline())));
+        assertThat(render(partitioned.getTasksDueOn(START.plusDays(3))), is(render(concurrent.getTasksDueOn(START.plusDays(3)))));
+        assertThat(partitioned.countTasksByDeadline(START, START.plusDays(9)),
+                is(concurrent.countTasksByDeadline(START, START.plusDays(9))));
+        assertThat(render(partitioned.getAllProjectsWithTasks()), is(render(concurrent.getAllProjectsWithTasks())));
+        assertThat(partitioned.findTaskById(1234).map(Task::getDeadline), is(concurrent.findTaskById(1234).map(Task::getDeadline)));
+        assertThat(partitioned.findTaskById(3_001).isPresent(), is(false));
+    }
+
+    @Test
+    void writers_on_different_shards_lose_no_tasks() throws Exception {
+        PartitionedTaskRepository repository = new PartitionedTaskRepository(4);
+        int threads = 8;
+        int tasksPerThread = 2_000;
+        for (int t = 0; t < threads; t++) {
+            repository.addProject("project-" + t);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String project = "project-" + t;
+            writers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < tasksPerThread; i++) {
+                    Task task = repository.addTask(project, "task " + i);
+                    repository.setTaskDeadline(task.getId(), START.plusDays(i % 7));
+                    // views are assembled while other shards are being written
+                    if (i % 500 == 0) {
+                        repository.getTasksByDeadline();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        int total = repository.getTasksByDeadline().values().stream()
+                .flatMap(projects -> projects.values().stream())
+                .mapToInt(List::size)
+                .sum();
+        assertThat(total, is(threads * tasksPerThread));
+        assertThat(repository.version(), is((long) threads * (1 + 2 * tasksPerThread)));
+        assertThat(repository.getProjectStats(START).get("project-3"), is(new TaskStats(tasksPerThread, 0, 0, 0)));
+        assertThrows(IllegalArgumentException.class, () -> new PartitionedTaskRepository(0));
+    }
+
+    @Test
+    void cross_project_reads_never_show_a_write_without_the_ones_before_it() throws Exception {
+        // "upstream" and "downstream" land on different stripes in both layouts
+        for (TaskRepository repository : List.of(new PartitionedTaskRepository(4), new ConcurrentTaskRepository())) {
+            repository.addProject("upstream");
+            repository.addProject("downstream");
+            int rounds = 5_000;
+            // the downstream writer only adds task i once the upstream writer has finished adding it
+            Semaphore upstreamDone = new Semaphore(0);
+            ExecutorService pool = Executors.newFixedThreadPool(3);
+            Future<?> upstream = pool.submit(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    repository.addTask("upstream", "task " + i);
+                    upstreamDone.release();
+                }
+                return null;
+            });
+            Future<?> downstream = pool.submit(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    upstreamDone.acquire();
+                    repository.addTask("downstream", "task " + i);
+                }
+                return null;
+            });
+            Future<Integer> reader = pool.submit(() -> {
+                int reads = 0;
+                while (!downstream.isDone()) {
+                    Map<String, List<Task>> snapshot = repository.snapshot().projects();
+                    assertThat(snapshot.get("downstream").size(), lessThanOrEqualTo(snapshot.get("upstream").size()));
+                    Map<String, List<Task>> undated = repository.getTasksWithoutDeadline();
+                    assertThat(undated.getOrDefault("downstream", List.of()).size(),
+                            lessThanOrEqualTo(undated.getOrDefault("upstream", List.of()).size()));
+                    Map<String, TaskStats> stats = repository.getProjectStats(START);
+                    assertThat(stats.get("downstream").open(), lessThanOrEqualTo(stats.get("upstream").open()));
+                    reads++;
+                }
+                return reads;
+            });
+            upstream.get(30, TimeUnit.SECONDS);
+            downstream.get(30, TimeUnit.SECONDS);
+            assertThat(reader.get(30, TimeUnit.SECONDS), greaterThan(0));
+            pool.shutdown();
+
+            assertThat(repository.snapshot().projects().get("downstream").size(), is(rounds));
+        }
+    }
+
+    // project order and task IDs, which is what the views must agree on
+    private static List<String> render(Map<?, ?> view) {
+        List<String> lines = new ArrayList<>();
+        view.forEach((key, value) -> {
+            if (value instanceof Map<?, ?> nested) {
+                render(nested).forEach(line -> lines.add(key + "/" + line));
+            } else {
+                lines.add(key + ": " + ((List<?>) value).stream().map(task -> ((Task) task).getId()).toList());
+            }
+        });
+        return lines;
+    }
+}
@@ -0,0 +1,142 @@
+package com.ortecfinance.tasklist.repository;
+
+import com.ortecfinance.tasklist.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TaskQueryTest {
+
+    private static final List<String> PROJECTS = List.of("secrets", "training", "chores");
+    private static final LocalDate START = LocalDate.of(2025, 11, 1);
+
+    @Test
+    void every_layout_answers_like_a_full_scan() {
+        List<TaskRepository> layouts = List.of(
+                new InMemoryTaskRepository(), new ConcurrentTaskRepository(), new ColumnarTaskRepository(),
+                new PartitionedTaskRepository(2));
+        Random random = new Random(7);
+        layouts.forEach(repository -> PROJECTS.forEach(repository::addProject));
+        for (int i = 0; i < 2_000; i++) {
+            int operation = random.nextInt(4);
+            long id = 1 + random.nextInt(i + 1);
+            String project = PROJECTS.get(random.nextInt(PROJECTS.size()));
+            LocalDate deadline = random.nextInt(4) == 0 ? null : START.plusDays(random.nextInt(20));
+            boolean done = random.nextBoolean();
+            for (TaskRepository repository : layouts) {
+                switch (operation) {
+                    case 0, 1 -> repository.addTask(project, "task " + i);
+                    case 2 -> repository.setTaskDeadline(id, deadline);
+                    default -> repository.setTaskDone(id, done);
+                }
+            }
+        }
+
+        List<TaskQuery> queries = new ArrayList<>();
+        for (TaskQuery.Sort sort : TaskQuery.Sort.values()) {
+            queries.add(new TaskQuery(null, null, null, null, sort, 50));
+            queries.add(new TaskQuery("training", null, null, null, sort, 1_000));
+            queries.add(new TaskQuery(null, true, null, null, sort, 25));
+            queries.add(new TaskQuery(null, false, START.plusDays(3), START.plusDays(5), sort, 1_000));
+            queries.add(new TaskQuery("chores", false, null, START.plusDays(2), sort, 10));
+            queries.add(new TaskQuery(null, null, START.plusDays(18), null, sort, 5));
+        }
+        for (TaskQuery query : queries) {
+            List<String> expected = render(fullScan(layouts.get(0), query));
+            for (TaskRepository repository : layouts) {
+                assertThat(query + " on " + repository.getClass().getSimpleName(),
+                        render(repository.query(query).tasks()), is(expected));
+            }
+        }
+        for (LocalDate today : List.of(START, START.plusDays(10), START.plusDays(30))) {
+            Map<String, TaskStats> expected = fullScanStats(layouts.get(0), today);
+            for (TaskRepository repository : layouts) {
+                assertThat(repository.getClass().getSimpleName(), repository.getProjectStats(today), is(expected));
+            }
+        }
+    }
+
+    @Test
+    void the_planner_picks_the_most_selective_index() {
+        TaskRepository repository = new ConcurrentTaskRepository();
+        PROJECTS.forEach(repository::addProject);
+        for (int i = 0; i < 300; i++) {
+            repository.addTask(i < 10 ? "secrets" : "training", "task " + i);
+        }
+        repository.setTaskDone(50, true);
+        repository.setTaskDeadline(60, START);
+        repository.setTaskDeadline(61, START.plusDays(30));
+
+        assertThat(repository.query(new TaskQuery(null, null, null, null, null, 10)).plan(), is(TaskQuery.Plan.FULL_SCAN));
+        assertThat(repository.query(new TaskQuery("secrets", false, null, null, null, 10)).plan(), is(TaskQuery.Plan.PROJECT));
+        assertThat(repository.query(new TaskQuery("training", true, null, null, null, 10)).plan(), is(TaskQuery.Plan.DONE_STATUS));
+
+        TaskQuery.Result range = repository.query(new TaskQuery("training", false, START, START.plusDays(7), null, 10));
+        assertThat(range.plan(), is(TaskQuery.Plan.DEADLINE_RANGE));
+        assertThat(range.tasks().stream().map(match -> match.task().getId()).toList(), is(List.of(60L)));
+    }
+
+    @Test
+    void a_status_walk_on_a_sparse_index_visits_only_its_own_tasks() {
+        // like one stripe of a large repository: few tasks, high IDs
+        TaskIndex index = new TaskIndex();
+        for (long id : List.of(500_000L, 700_001L, 900_002L)) {
+            index.add(0, "secrets", new Task(id, "task " + id, id == 700_001L));
+        }
+
+        TaskQuery.Result open = index.query(new TaskQuery(null, false, null, null, null, 10), -1, null);
+        assertThat(open.plan(), is(TaskQuery.Plan.DONE_STATUS));
+        assertThat(open.tasks().stream().map(match -> match.task().getId()).toList(), contains(500_000L, 900_002L));
+        TaskQuery.Result done = index.query(new TaskQuery(null, true, null, null, null, 10), -1, null);
+        assertThat(done.tasks().stream().map(match -> match.task().getId()).toList(), contains(700_001L));
+        assertThrows(ArithmeticException.class,
+                () -> index.add(0, "secrets", new Task(Integer.MAX_VALUE + 1L, "too far", false)));
+    }
+
+    @Test
+    void it_rejects_an_empty_range_or_limit() {
+        assertThrows(IllegalArgumentException.class, () -> new TaskQuery(null, null, START, START.minusDays(1), null, 10));
+        assertThrows(IllegalArgumentException.class, () -> new TaskQuery(null, null, null, null, null, 0));
+    }
+
+    private static List<TaskQuery.Match> fullScan(TaskRepository repository, TaskQuery query) {
+        List<String> order = repository.getProjectNames();
+        Comparator<TaskQuery.Match> byId = Comparator.comparingLong(match -> match.task().getId());
+        Comparator<TaskQuery.Match> sort = query.sort() == TaskQuery.Sort.ID ? byId : Comparator
+                .comparing((TaskQuery.Match match) -> match.task().getDeadline(), Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparingInt(match -> order.indexOf(match.project()))
+                .thenComparing(byId);
+        return repository.getAllProjectsWithTasks().entrySet().stream()
+                .flatMap(project -> project.getValue().stream().map(task -> new TaskQuery.Match(project.getKey(), task)))
+                .filter(match -> query.matches(match.project(), match.task()))
+                .sorted(sort)
+                .limit(query.limit())
+                .toList();
+    }
+
+    private static Map<String, TaskStats> fullScanStats(TaskRepository repository, LocalDate today) {
+        Map<String, TaskStats> stats = new LinkedHashMap<>();
+        repository.getAllProjectsWithTasks().forEach((project, tasks) -> {
+            int done = (int) tasks.stream().filter(Task::isDone).count();
+            int overdue = (int) tasks.stream()
+                    .filter(task -> !task.isDone() && task.getDeadline() != null && task.getDeadline().isBefore(today))
+                    .count();
+            int noDeadline = (int) tasks.stream().filter(task -> task.getDeadline() == null).count();
+            stats.put(project, new TaskStats(tasks.size() - done, done, overdue, noDeadline));
+        });
+        return stats;
+    }
+
+    private static List<String> render(List<TaskQuery.Match> matches) {
+        return matches.stream().map(match -> {
+            Task task = match.task();
+            return match.project() + "/" + task.getId() + "/" + task.isDone() + "/" + task.getDeadline();
+        }).toList();
+    }
+}
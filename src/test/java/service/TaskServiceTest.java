@@ -1,13 +1,22 @@
 package service;
 
+import com.ortecfinance.tasklist.events.ChangeFeed;
 import com.ortecfinance.tasklist.model.Task;
+import com.ortecfinance.tasklist.repository.ColumnarTaskRepository;
 import com.ortecfinance.tasklist.repository.InMemoryTaskRepository;
 import com.ortecfinance.tasklist.repository.TaskRepository;
+import com.ortecfinance.tasklist.repository.TaskStats;
+import com.ortecfinance.tasklist.service.BatchResult;
+import com.ortecfinance.tasklist.service.ProjectPage;
+import com.ortecfinance.tasklist.service.SearchHit;
 import com.ortecfinance.tasklist.service.TaskService;
+import com.ortecfinance.tasklist.service.TaskVersionConflictException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Map;
 
@@ -111,6 +120,45 @@ public class TaskServiceTest {
         assertThat(t.getDeadline(), is(d));
     }
 
+    @Test
+    void it_applies_a_conditional_update_only_at_the_expected_version() {
+        service.addProject("secrets");
+        service.addTask("secrets", "Eat more donuts.");
+        LocalDate d = LocalDate.of(2025, 12, 31);
+
+        Task updated = service.setTaskDeadline(1, d, 1);
+        long events = service.getChangeFeed().lastId();
+
+        assertThat(updated.getVersion(), is(2L));
+        TaskVersionConflictException ex = assertThrows(
+                TaskVersionConflictException.class,
+                () -> service.setTaskDone(1, true, 1)
+        );
+        assertThat(ex.getCurrent().getVersion(), is(2L));
+        assertThat(service.getTask(1).isDone(), is(false));
+        // a rejected update publishes nothing
+        assertThat(service.getChangeFeed().lastId(), is(events));
+        assertThat(service.setTaskDone(1, true, 2).getVersion(), is(3L));
+    }
+
+    @Test
+    void it_rejects_conditional_updates_on_the_columnar_store_before_touching_the_task() {
+        TaskService columnar = new TaskService(new ColumnarTaskRepository());
+        columnar.addProject("secrets");
+        columnar.addTask("secrets", "Eat more donuts.");
+        long events = columnar.getChangeFeed().lastId();
+
+        assertThat(columnar.supportsConditionalUpdates(), is(false));
+        assertThrows(UnsupportedOperationException.class, () -> columnar.setTaskDone(1, true, 1));
+        // even for a task that doesn't exist
+        assertThrows(UnsupportedOperationException.class, () -> columnar.setTaskDeadline(9, LocalDate.of(2025, 12, 31), 1));
+        assertThat(columnar.getTask(1).isDone(), is(false));
+        assertThat(columnar.getChangeFeed().lastId(), is(events));
+        // the unconditional forms still work
+        columnar.setTaskDone(1, true);
+        assertThat(columnar.getTask(1).isDone(), is(true));
+    }
+
     // 4) Queries: today and view-by-deadline
 
     @Test
@@ -177,4 +225,193 @@ public class TaskServiceTest {
         assertThat(view.noDeadline.get("secrets"), hasSize(1));
         assertThat(view.noDeadline.get("secrets").get(0).getDescription(), is("Destroy all humans."));
     }
+
+    @Test
+    void it_moves_task_between_deadlines_and_keeps_project_order() {
+        service.addProject("secrets");
+        service.addProject("training");
+        service.addTask("secrets", "Eat more donuts.");          // task 1
+        service.addTask("training", "Learn Streams.");           // task 2
+
+        LocalDate d1 = LocalDate.of(2025, 11, 11);
+        LocalDate d2 = LocalDate.of(2025, 11, 13);
+
+        // training gets the deadline first, secrets must still be listed first
+        service.setTaskDeadline(2, d1);
+        service.setTaskDeadline(1, d1);
+        service.setTaskDeadline(1, d2);
+        service.setTaskDeadline(2, d2);
+
+        TaskService.DeadlineView view = service.getTasksByDeadline();
+
+        assertThat(view.byDeadline.keySet(), contains(d2));
+        assertThat(view.byDeadline.get(d2).keySet(), contains("secrets", "training"));
+        assertThat(view.noDeadline.isEmpty(), is(true));
+    }
+
+    // 5) Paging
+
+    @Test
+    void it_pages_through_projects_and_tasks_with_a_cursor() {
+        service.addProject("secrets");
+        service.addTask("secrets", "Eat more donuts.");
+        service.addTask("secrets", "Destroy all humans.");
+        service.addTask("secrets", "Take over the moon.");
+        service.addProject("empty");
+        service.addProject("training");
+        service.addTask("training", "SOLID");
+
+        ProjectPage first = service.getProjectsPage(null, 2);
+        assertThat(first.projects(), hasSize(1));
+        assertThat(first.projects().get(0).tasks().stream().map(Task::getId).toList(), contains(1L, 2L));
+
+        ProjectPage second = service.getProjectsPage(first.nextCursor(), 2);
+        assertThat(second.projects().stream().map(ProjectPage.ProjectTasks::name).toList(),
+                contains("secrets", "empty", "training"));
+        assertThat(second.projects().get(0).tasks().get(0).getId(), is(3L));
+        assertThat(second.projects().get(2).tasks().get(0).getId(), is(4L));
+        assertThat(second.nextCursor(), is(nullValue()));
+    }
+
+    @Test
+    void it_rejects_a_malformed_cursor() {
+        assertThrows(IllegalArgumentException.class, () -> service.getProjectsPage("not a cursor", 10));
+    }
+
+    @Test
+    void it_reports_per_item_results_for_bulk_writes() {
+        service.addProject("secrets");
+
+        BatchResult created = service.addTasks(List.of(
+                new TaskRepository.NewTask("secrets", "Eat more donuts."),
+                new TaskRepository.NewTask("training", "SOLID")));
+
+        assertThat(created.succeeded(), is(1));
+        assertThat(created.items().get(0).taskId(), is(1L));
+        assertThat(created.items().get(1).error(), is("Could not find a project with the name \"training\"."));
+
+        BatchResult done = service.setTasksDone(List.of(
+                new TaskRepository.DoneChange(1, true),
+                new TaskRepository.DoneChange(2, true)));
+
+        assertThat(done.failed(), is(1));
+        assertThat(done.items().get(1).error(), is("Could not find a task with an ID of 2."));
+        assertThat(service.getAllProjectsWithTasks().get("secrets").get(0).isDone(), is(true));
+    }
+
+    // 6) Search
+
+    @Test
+    void it_finds_tasks_containing_every_query_word() {
+        service.addProject("secrets");
+        service.addProject("training");
+        service.addTask("secrets", "Eat more donuts.");
+        service.addTask("training", "Refactor the donut shop");
+        service.addTask("training", "Eat less sugar");
+        service.addTasks(List.of(new TaskRepository.NewTask("training", "Bake DONUTS for the team")));
+
+        List<SearchHit> hits = service.search("donuts eat", 10);
+
+        assertThat(hits, hasSize(1));
+        assertThat(hits.get(0).project(), is("secrets"));
+        assertThat(hits.get(0).task().getId(), is(1L));
+        assertThat(service.search("DONUTS", 10).stream().map(hit -> hit.task().getId()).toList(), is(List.of(1L, 4L)));
+        assertThat(service.search("pancakes", 10), is(empty()));
+    }
+
+    @Test
+    void it_ranks_prefix_matches_by_rarity_and_closeness() {
+        service.addProject("secrets");
+        service.addTask("secrets", "Refactor the donut shop");
+        service.addTask("secrets", "Eat more donuts.");
+        service.addTask("secrets", "Buy donuts and coffee");
+
+        List<Long> ids = service.search("donut*", 10).stream().map(hit -> hit.task().getId()).toList();
+        // "donut" is an exact match for one task and rarer than "donuts"
+        assertThat(ids, is(List.of(1L, 2L, 3L)));
+        assertThat(service.search("do*", 2), hasSize(2));
+        assertThrows(IllegalArgumentException.class, () -> service.search(" ", 10));
+    }
+
+    @Test
+    void it_indexes_tasks_that_existed_before_the_service() {
+        repository.addProject("secrets");
+        repository.addTask("secrets", "Eat more donuts.");
+
+        assertThat(new TaskService(repository).search("donuts", 10), hasSize(1));
+    }
+
+    // 7) Deadline windows against a fixed clock
+
+    @Test
+    void it_lists_overdue_and_upcoming_open_tasks_relative_to_the_clock() {
+        LocalDate today = LocalDate.of(2025, 11, 10);
+        TaskService service = new TaskService(repository, new ChangeFeed(),
+                Clock.fixed(today.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+        service.addProject("secrets");
+        service.addProject("training");
+        service.addTask("secrets", "Eat more donuts.");
+        service.addTask("training", "SOLID");
+        service.addTask("training", "Coupling and Cohesion");
+        service.addTask("secrets", "Destroy all humans.");
+        service.setTaskDeadline(1, today.minusDays(3));
+        service.setTaskDeadline(2, today.minusDays(1));
+        service.setTaskDeadline(3, today);
+        service.setTaskDeadline(4, today.plusDays(7));
+        service.setTaskDone(2, true);
+
+        assertThat(service.getOverdueTasks().keySet(), contains(today.minusDays(3)));
+        assertThat(service.getOverdueTasks().get(today.minusDays(3)).get("secrets").get(0).getId(), is(1L));
+        assertThat(service.getUpcomingTasks(7).keySet(), contains(today));
+        assertThat(service.getUpcomingTasks(8).keySet(), contains(today, today.plusDays(7)));
+        assertThat(service.getTodaysTasks().get("training").get(0).getId(), is(3L));
+        assertThrows(IllegalArgumentException.class, () -> service.getUpcomingTasks(0));
+    }
+
+    @Test
+    void it_counts_tasks_per_day_over_a_range() {
+        service.addProject("secrets");
+        LocalDate day = LocalDate.of(2025, 11, 10);
+        for (int i = 1; i <= 4; i++) {
+            service.addTask("secrets", "task " + i);
+            service.setTaskDeadline(i, day.plusDays(i / 2));
+        }
+
+        assertThat(service.countTasksByDeadline(day, day.plusDays(1)), is(Map.of(day, 1, day.plusDays(1), 2)));
+        assertThat(service.countTasksByDeadline(day.plusDays(5), day.plusDays(9)), is(anEmptyMap()));
+        assertThrows(IllegalArgumentException.class, () -> service.countTasksByDeadline(day, day.minusDays(1)));
+    }
+
+    // 8) Per-project statistics
+
+    @Test
+    void it_keeps_per_project_stats_current_across_writes_and_days() {
+        LocalDate today = LocalDate.of(2025, 11, 10);
+        service = new TaskService(repository, new ChangeFeed(), fixedAt(today));
+        service.addProject("secrets");
+        service.addProject("training");
+        service.addTask("secrets", "Eat more donuts.");
+        service.addTask("secrets", "Destroy all humans.");
+        service.addTask("secrets", "Take over the world.");
+        service.setTaskDeadline(1, today.minusDays(1));
+        service.setTaskDeadline(2, today.plusDays(2));
+        service.setTaskDone(3, true);
+
+        assertThat(service.getProjectStats(), is(Map.of(
+                "secrets", new TaskStats(2, 1, 1, 1),
+                "training", new TaskStats(0, 0, 0, 0))));
+        assertThat(service.getProjectStats().keySet(), contains("secrets", "training"));
+
+        service.setTaskDone(1, true);
+        assertThat(service.getProjectStats().get("secrets"), is(new TaskStats(1, 2, 0, 1)));
+
+        TaskService later = new TaskService(repository, new ChangeFeed(), fixedAt(today.plusDays(5)));
+        assertThat(later.getProjectStats().get("secrets"), is(new TaskStats(1, 2, 1, 1)));
+        later.setTaskDeadline(2, today.plusDays(9));
+        assertThat(later.getProjectStats().get("secrets"), is(new TaskStats(1, 2, 0, 1)));
+    }
+
+    private static Clock fixedAt(LocalDate day) {
+        return Clock.fixed(day.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+    }
 }